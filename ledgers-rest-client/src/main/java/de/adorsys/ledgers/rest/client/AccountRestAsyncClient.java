@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.util.domain.CustomPageImpl;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous variants of the {@link AccountRestClient} calls used by the AIS flows.
+ */
+public class AccountRestAsyncClient extends AsyncRestClient<AccountRestClient> {
+
+    public AccountRestAsyncClient(AccountRestClient accountRestClient, AuthRequestInterceptor authRequestInterceptor, Executor executor) {
+        super(accountRestClient, authRequestInterceptor, executor);
+    }
+
+    public CompletableFuture<ResponseEntity<AccountDetailsTO>> getAccountDetailsById(String accessToken, String accountId) {
+        return call(accessToken, client -> client.getAccountDetailsById(accountId));
+    }
+
+    public CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> getBalances(String accessToken, String accountId) {
+        return call(accessToken, client -> client.getBalances(accountId));
+    }
+
+    public CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> getTransactionByDatesPaged(String accessToken, String accountId,
+                                                                                                      LocalDate dateFrom, LocalDate dateTo,
+                                                                                                      int page, int size) {
+        return call(accessToken, client -> client.getTransactionByDatesPaged(accountId, dateFrom, dateTo, page, size));
+    }
+}
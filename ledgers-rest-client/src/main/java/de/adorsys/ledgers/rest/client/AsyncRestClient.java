@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Asynchronous companion of a Ledgers Feign client. Calls run on the given executor, so that independent calls
+ * can be sent to Ledgers concurrently.
+ * <p>
+ * The bearer token is passed with every call instead of being taken from the thread calling the client,
+ * it is set in {@link AuthRequestInterceptor} only for the time of the call on the executor thread.
+ *
+ * @param <C> type of the Feign client
+ */
+public class AsyncRestClient<C> {
+    private final C client;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final Executor executor;
+
+    public AsyncRestClient(C client, AuthRequestInterceptor authRequestInterceptor, Executor executor) {
+        this.client = client;
+        this.authRequestInterceptor = authRequestInterceptor;
+        this.executor = executor;
+    }
+
+    /**
+     * Performs any call of the Feign client asynchronously.
+     *
+     * @param accessToken bearer token the call is authorised with, no authorisation is sent if null
+     * @param call        call of the Feign client
+     * @return future completed with the response, or exceptionally with the exception thrown by the client
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> call(String accessToken, Function<C, ResponseEntity<T>> call) {
+        return CompletableFuture.supplyAsync(() -> authRequestInterceptor.callWithAccessToken(accessToken, () -> call.apply(client)), executor);
+    }
+}
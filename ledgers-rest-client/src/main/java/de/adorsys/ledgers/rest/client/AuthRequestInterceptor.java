@@ -20,6 +20,9 @@ import de.adorsys.ledgers.middleware.rest.utils.Constants;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 public class AuthRequestInterceptor implements RequestInterceptor {
 
     private static final String BEARER_CONSTANT = "Bearer ";
@@ -34,6 +37,57 @@ public class AuthRequestInterceptor implements RequestInterceptor {
     }
 
     public void setAccessToken(String accessToken) {
-        this.accessToken.set(accessToken);
+        if (accessToken == null) {
+            this.accessToken.remove();
+        } else {
+            this.accessToken.set(accessToken);
+        }
+    }
+
+    public String getAccessToken() {
+        return accessToken.get();
+    }
+
+    /**
+     * Performs the call with the given access token, the token of the current thread is restored afterwards.
+     *
+     * @param accessToken token the Ledgers requests of the call are authorised with
+     * @param call        call to perform
+     * @return result of the call
+     */
+    public <T> T callWithAccessToken(String accessToken, Supplier<T> call) {
+        String previousAccessToken = this.accessToken.get();
+        setAccessToken(accessToken);
+        try {
+            return call.get();
+        } finally {
+            setAccessToken(previousAccessToken);
+        }
+    }
+
+    /**
+     * Binds the task to the access token of the current thread, so that it is authorised with this token
+     * on whatever thread it runs.
+     *
+     * @param task task to run
+     * @return task running with the access token of the current thread
+     */
+    public Runnable propagateAccessToken(Runnable task) {
+        String currentAccessToken = accessToken.get();
+        return () -> callWithAccessToken(currentAccessToken, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Wraps the executor, so that every task submitted to it runs with the access token of the submitting thread,
+     * e.g. for {@link java.util.concurrent.CompletableFuture#supplyAsync(Supplier, Executor)}.
+     *
+     * @param executor executor running the tasks
+     * @return executor propagating the access token
+     */
+    public Executor propagatingExecutor(Executor executor) {
+        return task -> executor.execute(propagateAccessToken(task));
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+/**
+ * Count based circuit breaker. It opens once the failure rate of the last `windowSize` calls reaches
+ * `failureRateThreshold` percent, rejects calls for `openDurationMs` and then lets `halfOpenCalls` trial calls through.
+ * The circuit closes again if all of them succeed and opens again on the first failure.
+ */
+class CircuitBreaker {
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int failureRateThreshold;
+    private final long openDurationMs;
+    private final int halfOpenCalls;
+
+    private final boolean[] outcomes;
+    private int recordedCalls;
+    private int failedCalls;
+    private int nextOutcome;
+
+    private State state = State.CLOSED;
+    private long openUntil;
+    private int permittedTrialCalls;
+    private int succeededTrialCalls;
+
+    CircuitBreaker(int windowSize, int failureRateThreshold, long openDurationMs, int halfOpenCalls) {
+        this.windowSize = Math.max(windowSize, 1);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenCalls = Math.max(halfOpenCalls, 1);
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            permittedTrialCalls = 0;
+            succeededTrialCalls = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (permittedTrialCalls >= halfOpenCalls) {
+                return false;
+            }
+            permittedTrialCalls++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            succeededTrialCalls++;
+            if (succeededTrialCalls >= halfOpenCalls) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls == windowSize && failedCalls * 100 >= failureRateThreshold * windowSize) {
+                open();
+            }
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recordedCalls == windowSize) {
+            if (outcomes[nextOutcome]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        nextOutcome = (nextOutcome + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openDurationMs;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recordedCalls = 0;
+        failedCalls = 0;
+        nextOutcome = 0;
+    }
+}
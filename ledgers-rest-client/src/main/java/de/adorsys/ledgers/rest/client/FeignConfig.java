@@ -17,25 +17,77 @@
 package de.adorsys.ledgers.rest.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import feign.Client;
+import feign.codec.Decoder;
 import feign.codec.Encoder;
+import feign.codec.ErrorDecoder;
+import feign.optionals.OptionalDecoder;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
 import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.cloud.openfeign.FeignFormatterRegistrar;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
 import org.springframework.cloud.openfeign.support.SpringEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * In this configuration, we clone the original object mapper and remove the
  * root value wrapping.
+ * <p>
+ * Each Feign client gets its own pool of HTTP connections. Pool settings are read from
+ * `xs2a.ledgers.http-client.{client name}.*`, falling back to `xs2a.ledgers.http-client.default.*`,
+ * timeouts are taken from the standard `feign.client.config.{client name}` settings.
+ * Concurrent identical GET requests are sent only once, see {@link SingleFlightClient}, every call is measured
+ * by {@link MeteredClient}. Concurrent calls of a client can be limited and failing clients can be cut off by
+ * {@link IsolatingClient}, so that one slow client does not block the threads needed by the others. Both are
+ * switched off by default.
+ * Slow idempotent reads can be hedged with {@link HedgingClient}, this is switched off by default and enabled per client.
+ * Large responses are requested gzip compressed and decompressed while being decoded, see {@link GzipNegotiation}.
+ * JSON responses are read straight from the response stream by {@link JacksonStreamingDecoder}.
  *
  * @author fpo
  */
 @Configuration
 public class FeignConfig {
+    private static final String HTTP_CLIENT_PROPERTY_PREFIX = "xs2a.ledgers.http-client.";
+    private static final String DEFAULT_CLIENT_NAME = "default";
+    private static final String POOL_METRIC_PREFIX = "xs2a.ledgers.http-client.pool";
+    // idempotent reads only, methods changing data in Ledgers must never be sent twice
+    private static final Map<String, String[]> DEFAULT_HEDGED_CONFIG_KEYS = Map.of(
+            "ledgersAccount", new String[]{"AccountRestClient#getTransactionByDatesPaged", "AccountRestClient#getBalances", "AccountRestClient#getAccountDetailsById"},
+            "ledgersPayment", new String[]{"PaymentRestClient#getPaymentStatusById"},
+            "ledgersRedirectSca", new String[]{"RedirectScaRestClient#getSCA"});
 
     @Bean
     public Encoder feignEncoder(ObjectMapper objectMapper) {
@@ -44,6 +96,128 @@ public class FeignConfig {
         return new SpringEncoder(objectFactory);
     }
 
+    @Bean
+    public GzipNegotiation gzipNegotiation(@Value("${feign.client.name:" + DEFAULT_CLIENT_NAME + "}") String clientName,
+                                           Environment environment) {
+        return new GzipNegotiation(getClientProperty(environment, clientName, "gzip.enabled", true),
+                                   getClientProperty(environment, clientName, "gzip.min-response-size", 2048L));
+    }
+
+    @Bean
+    public Decoder feignDecoder(@Value("${xs2a.ledgers.http-client.decoder.blackbird.enabled:false}") boolean blackbirdEnabled,
+                                ObjectFactory<HttpMessageConverters> messageConverters, GzipNegotiation gzipNegotiation) {
+        // the mapper of the JSON converter used by SpringDecoder, so that both decode responses the same way
+        Supplier<ObjectMapper> decoderObjectMapper = () -> messageConverters.getObject().getConverters().stream()
+                                                                   .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                                                                   .map(MappingJackson2HttpMessageConverter.class::cast)
+                                                                   .map(MappingJackson2HttpMessageConverter::getObjectMapper)
+                                                                   .findFirst()
+                                                                   .map(objectMapper -> blackbirdEnabled
+                                                                                                ? objectMapper.copy().registerModule(new BlackbirdModule())
+                                                                                                : objectMapper)
+                                                                   .orElse(null);
+        Decoder decoder = new JacksonStreamingDecoder(decoderObjectMapper, new SpringDecoder(messageConverters));
+        return gzipNegotiation.decoder(new OptionalDecoder(new ResponseEntityDecoder(decoder)));
+    }
+
+    @Bean
+    public ErrorDecoder feignErrorDecoder(GzipNegotiation gzipNegotiation) {
+        return gzipNegotiation.errorDecoder(new ErrorDecoder.Default());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "xs2a.ledgers.http-client.pool.enabled", havingValue = "true", matchIfMissing = true)
+    public CloseableHttpClient feignHttpClient(@Value("${feign.client.name:" + DEFAULT_CLIENT_NAME + "}") String clientName,
+                                               Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        int maxConnections = getClientProperty(environment, clientName, "max-connections", 50);
+        long keepAliveMs = getClientProperty(environment, clientName, "keep-alive_ms", 30_000L);
+        long idleEvictionMs = getClientProperty(environment, clientName, "idle-eviction_ms", 60_000L);
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                                                                       .setMaxConnTotal(maxConnections)
+                                                                       .setMaxConnPerRoute(maxConnections)
+                                                                       .build();
+        meterRegistry.ifAvailable(registry -> bindPoolMetrics(registry, clientName, connectionManager));
+
+        return HttpClients.custom()
+                       .setConnectionManager(connectionManager)
+                       .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+                       .evictExpiredConnections()
+                       .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMs))
+                       // compression is negotiated per client by GzipNegotiation
+                       .disableContentCompression()
+                       .disableCookieManagement()
+                       .build();
+    }
+
+    @Bean
+    public Client feignClient(@Value("${feign.client.name:" + DEFAULT_CLIENT_NAME + "}") String clientName,
+                              @Value("${xs2a.ledgers.http-client.single-flight.enabled:true}") boolean singleFlightEnabled,
+                              Environment environment, ObjectProvider<CloseableHttpClient> feignHttpClient,
+                              ObjectProvider<MeterRegistry> meterRegistry, ObjectMapper objectMapper) {
+        CloseableHttpClient httpClient = feignHttpClient.getIfUnique();
+        Client client = httpClient != null
+                                ? new ApacheHttp5Client(httpClient)
+                                : new Client.Default(null, null);
+        MeterRegistry registry = meterRegistry.getIfUnique();
+
+        // a circuit breaker is shared by all PSUs using the client, so it is only used where explicitly switched on
+        CircuitBreaker circuitBreaker = null;
+        if (getClientProperty(environment, clientName, "circuit-breaker.enabled", false)) {
+            circuitBreaker = new CircuitBreaker(getClientProperty(environment, clientName, "circuit-breaker.window-size", 20),
+                                                getClientProperty(environment, clientName, "circuit-breaker.failure-rate", 50),
+                                                getClientProperty(environment, clientName, "circuit-breaker.open_ms", 10_000L),
+                                                getClientProperty(environment, clientName, "circuit-breaker.half-open-calls", 3));
+        }
+        IsolatingClient isolatingClient = new IsolatingClient(client,
+                                                              getClientProperty(environment, clientName, "bulkhead.max-concurrent-calls", 0),
+                                                              getClientProperty(environment, clientName, "bulkhead.max-wait_ms", 0L),
+                                                              circuitBreaker);
+        if (registry != null && circuitBreaker != null) {
+            Gauge.builder("xs2a.ledgers.http-client.circuit-breaker.state", isolatingClient, c -> c.getCircuitBreakerState().ordinal())
+                    .description("State of the circuit breaker: 0 - closed, 1 - open, 2 - half open")
+                    .tag("client", clientName)
+                    .register(registry);
+        }
+        client = isolatingClient;
+
+        if (getClientProperty(environment, clientName, "hedging.enabled", false)) {
+            long fallbackDelayMs = getClientProperty(environment, clientName, "hedging.delay_ms", 500L);
+            ToLongFunction<String> hedgeDelayMs = registry != null
+                                                          ? new LatencyPercentileHedgeDelay(registry, clientName, fallbackDelayMs)
+                                                          : configKey -> fallbackDelayMs;
+            HedgingClient hedgingClient = new HedgingClient(client,
+                                                            new HashSet<>(Arrays.asList(getHedgedConfigKeys(environment, clientName))),
+                                                            hedgeDelayMs,
+                                                            getClientProperty(environment, clientName, "hedging.budget-ratio", 0.1d),
+                                                            buildHedgingExecutor(clientName,
+                                                                                 getClientProperty(environment, clientName, "hedging.threads", 16),
+                                                                                 getClientProperty(environment, clientName, "hedging.queue-size", 8)));
+            if (registry != null) {
+                FunctionCounter.builder("xs2a.ledgers.http-client.hedged", hedgingClient, HedgingClient::getHedgedRequests)
+                        .description("Second requests sent for slow or failed idempotent reads")
+                        .tag("client", clientName)
+                        .register(registry);
+            }
+            client = hedgingClient;
+        }
+
+        if (singleFlightEnabled) {
+            SingleFlightClient singleFlightClient = new SingleFlightClient(client);
+            if (registry != null) {
+                FunctionCounter.builder("xs2a.ledgers.http-client.coalesced", singleFlightClient, SingleFlightClient::getCoalescedRequests)
+                        .description("GET requests served by the response of an identical concurrent request")
+                        .tag("client", clientName)
+                        .register(registry);
+            }
+            client = singleFlightClient;
+        }
+
+        return registry != null
+                       ? new MeteredClient(client, clientName, registry, objectMapper)
+                       : client;
+    }
+
     @Bean
     public FeignFormatterRegistrar localDateFeignFormatterRegistrar() {
         return formatterRegistry -> {
@@ -52,4 +226,47 @@ public class FeignConfig {
             registrar.registerFormatters(formatterRegistry);
         };
     }
+
+    private static ExecutorService buildHedgingExecutor(String clientName, int threads, int queueSize) {
+        // threads are daemons and terminate when idle, so the executor does not need to be shut down with the client
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(clientName + "-hedging-");
+        threadFactory.setDaemon(true);
+        int poolSize = Math.max(threads, 1);
+        // requests rejected by the bounded executor are sent without hedging, see HedgingClient
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                                                             new ArrayBlockingQueue<>(Math.max(queueSize, 1)),
+                                                             threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static String[] getHedgedConfigKeys(Environment environment, String clientName) {
+        // config keys name methods of one client interface, so there is no fallback to the default client
+        return environment.getProperty(HTTP_CLIENT_PROPERTY_PREFIX + clientName + ".hedging.config-keys", String[].class,
+                                       DEFAULT_HEDGED_CONFIG_KEYS.getOrDefault(clientName, new String[0]));
+    }
+
+    private static <T> T getClientProperty(Environment environment, String clientName, String property, T defaultValue) {
+        @SuppressWarnings("unchecked")
+        Class<T> type = (Class<T>) defaultValue.getClass();
+        T value = environment.getProperty(HTTP_CLIENT_PROPERTY_PREFIX + clientName + "." + property, type);
+        return value != null
+                       ? value
+                       : environment.getProperty(HTTP_CLIENT_PROPERTY_PREFIX + DEFAULT_CLIENT_NAME + "." + property, type, defaultValue);
+    }
+
+    private static void bindPoolMetrics(MeterRegistry registry, String clientName, PoolingHttpClientConnectionManager connectionManager) {
+        registerPoolGauge(registry, clientName, connectionManager, "leased", "Connections currently in use", PoolStats::getLeased);
+        registerPoolGauge(registry, clientName, connectionManager, "available", "Idle connections kept in the pool", PoolStats::getAvailable);
+        registerPoolGauge(registry, clientName, connectionManager, "pending", "Requests waiting for a connection", PoolStats::getPending);
+        registerPoolGauge(registry, clientName, connectionManager, "max", "Max number of connections", PoolStats::getMax);
+    }
+
+    private static void registerPoolGauge(MeterRegistry registry, String clientName, PoolingHttpClientConnectionManager connectionManager,
+                                          String name, String description, ToIntFunction<PoolStats> stat) {
+        Gauge.builder(POOL_METRIC_PREFIX + "." + name, connectionManager, manager -> stat.applyAsInt(manager.getTotalStats()))
+                .description(description)
+                .tag("client", clientName)
+                .register(registry);
+    }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.FeignException;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Util;
+import feign.codec.Decoder;
+import feign.codec.ErrorDecoder;
+import org.springframework.http.HttpHeaders;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Negotiates gzip compressed responses with Ledgers.
+ * <p>
+ * `Accept-Encoding: gzip` is sent with the calls of a client method unless its last response was smaller than
+ * the configured threshold, as compressing small bodies costs more than it saves. The decision is corrected with every
+ * response, so a method returning a large body again gets compressed responses from the next call on.
+ * Compressed bodies are recognised by the gzip header and decompressed while the decoder reads them, without
+ * buffering the whole body.
+ */
+public class GzipNegotiation implements RequestInterceptor {
+    private static final String GZIP = "gzip";
+    private static final int GZIP_MAGIC_FIRST_BYTE = 0x1f;
+    private static final int GZIP_MAGIC_SECOND_BYTE = 0x8b;
+
+    private final boolean enabled;
+    private final long minResponseSize;
+    private final Set<String> smallResponseMethods = ConcurrentHashMap.newKeySet();
+
+    public GzipNegotiation(boolean enabled, long minResponseSize) {
+        this.enabled = enabled;
+        this.minResponseSize = minResponseSize;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (!enabled) {
+            return;
+        }
+        String method = getMethod(template);
+        if (method == null || !smallResponseMethods.contains(method)) {
+            template.header(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        }
+    }
+
+    public Decoder decoder(Decoder delegate) {
+        return (response, type) -> {
+            recordResponseSize(response);
+            Response decompressed = decompress(response);
+            try {
+                return delegate.decode(decompressed, type);
+            } finally {
+                if (decompressed != response) {
+                    Util.ensureClosed(decompressed.body());
+                }
+            }
+        };
+    }
+
+    public ErrorDecoder errorDecoder(ErrorDecoder delegate) {
+        return (methodKey, response) -> {
+            try {
+                return delegate.decode(methodKey, decompress(response));
+            } catch (IOException e) {
+                return FeignException.errorReading(response.request(), response, e);
+            }
+        };
+    }
+
+    /**
+     * Wraps the given stream into a decompressing one if it starts with the gzip header, otherwise returns it with
+     * its content unchanged. Bodies already decompressed by the transport are therefore not decompressed twice.
+     *
+     * @param inputStream response body
+     * @return stream of the uncompressed body
+     * @throws IOException if the body can't be read
+     */
+    static InputStream decompress(InputStream inputStream) throws IOException {
+        InputStream body = new BufferedInputStream(inputStream);
+        body.mark(2);
+        boolean gzip = body.read() == GZIP_MAGIC_FIRST_BYTE && body.read() == GZIP_MAGIC_SECOND_BYTE;
+        body.reset();
+        return gzip
+                       ? new GZIPInputStream(body)
+                       : body;
+    }
+
+    private Response decompress(Response response) throws IOException {
+        if (response.body() == null) {
+            return response;
+        }
+        InputStream body = decompress(response.body().asInputStream());
+        if (!(body instanceof GZIPInputStream)) {
+            return response.toBuilder().body(body, response.body().length()).build();
+        }
+
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers());
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        return response.toBuilder()
+                       .headers(headers)
+                       .body(body, null)
+                       .build();
+    }
+
+    private void recordResponseSize(Response response) {
+        String method = response.request() != null
+                                ? getMethod(response.request().requestTemplate())
+                                : null;
+        if (method == null) {
+            return;
+        }
+        Integer length = response.body() != null
+                                 ? response.body().length()
+                                 : Integer.valueOf(0);
+        // compressed by the server or size unknown (chunked): the body is treated as a large one
+        boolean compressed = response.headers().getOrDefault(HttpHeaders.CONTENT_ENCODING, Set.of()).contains(GZIP);
+        if (!compressed && length != null && length < minResponseSize) {
+            smallResponseMethods.add(method);
+        } else {
+            smallResponseMethods.remove(method);
+        }
+    }
+
+    private String getMethod(RequestTemplate template) {
+        return template != null && template.methodMetadata() != null
+                       ? template.methodMetadata().configKey()
+                       : null;
+    }
+}
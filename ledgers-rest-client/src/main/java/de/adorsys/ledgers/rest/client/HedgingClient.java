@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Feign client sending a second request for slow or failed idempotent reads.
+ * <p>
+ * Only GET requests of the configured client interface methods are hedged. Methods are identified by their Feign
+ * config key, e.g. `AccountRestClient#getBalances(String)`, the parameter list may be omitted to match all overloads
+ * of the method. Methods of other clients sharing the same name are therefore never hedged by accident. If the first request has not been
+ * answered after the hedge delay of the method, usually its p95 latency (see {@link LatencyPercentileHedgeDelay}), a
+ * second one is sent and the first successful response is used. If the first request fails earlier, it is repeated
+ * right away on the caller's thread. Second requests are limited by a retry budget: every hedged
+ * method call earns `budgetRatio` tokens, every second request costs one token, so that a slow Ledgers does not get
+ * twice the load. The response of the losing request is discarded as soon as it arrives.
+ * <p>
+ * To race two requests the first one runs on the executor while the caller waits, the second one takes another
+ * executor thread only once the delay has passed. While the budget is exhausted or the executor is saturated the
+ * request is sent on the caller's thread without a second one.
+ */
+public class HedgingClient implements Client {
+    private static final int MAX_BUDGET_TOKENS = 10;
+
+    private final Client delegate;
+    private final Set<String> hedgedConfigKeys;
+    private final ToLongFunction<String> hedgeDelayMs;
+    private final double budgetRatio;
+    private final ExecutorService executor;
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private double budgetTokens = MAX_BUDGET_TOKENS;
+
+    /**
+     * @param delegate         client performing the calls
+     * @param hedgedConfigKeys config keys of the client interface methods that may be hedged
+     * @param hedgeDelayMs     time in milliseconds to wait for the first response of a method, by its config key,
+     *                         before sending the second request
+     * @param budgetRatio      share of hedged method calls that may send a second request
+     * @param executor         bounded executor running the requests, it needs up to two threads per hedged call
+     */
+    HedgingClient(Client delegate, Set<String> hedgedConfigKeys, ToLongFunction<String> hedgeDelayMs, double budgetRatio,
+                  ExecutorService executor) {
+        this.delegate = delegate;
+        this.hedgedConfigKeys = hedgedConfigKeys;
+        this.hedgeDelayMs = hedgeDelayMs;
+        this.budgetRatio = budgetRatio;
+        this.executor = executor;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (!isHedged(request)) {
+            return delegate.execute(request, options);
+        }
+        earnBudget();
+        if (!hasBudget()) {
+            // no second request could be sent, so there is nothing to race
+            return delegate.execute(request, options);
+        }
+
+        CompletableFuture<Response> first;
+        try {
+            first = submit(request, options);
+        } catch (RejectedExecutionException e) {
+            return delegate.execute(request, options);
+        }
+        long delayMs = hedgeDelayMs.applyAsLong(request.requestTemplate().methodMetadata().configKey());
+        Response firstResponse;
+        try {
+            firstResponse = first.get(delayMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return hedge(request, options, first);
+        } catch (ExecutionException e) {
+            if (!tryAcquireRetry()) {
+                throw unwrap(e);
+            }
+            return delegate.execute(request, options);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            first.thenAccept(HedgingClient::closeQuietly);
+            throw new InterruptedIOException("Interrupted while waiting for Ledgers response");
+        }
+
+        if (firstResponse.status() < 500 || !tryAcquireRetry()) {
+            return firstResponse;
+        }
+        closeQuietly(firstResponse);
+        return delegate.execute(request, options);
+    }
+
+    public long getHedgedRequests() {
+        return hedgedRequests.get();
+    }
+
+    private Response hedge(Request request, Request.Options options, CompletableFuture<Response> first) throws IOException {
+        CompletableFuture<Response> second = trySubmitHedge(request, options);
+        if (second == null) {
+            return await(first);
+        }
+
+        CompletableFuture<Response> winner = new CompletableFuture<>();
+        AtomicInteger pendingRequests = new AtomicInteger(2);
+        BiConsumer<Response, Throwable> onComplete = (response, error) -> {
+            if (error == null && response.status() < 500) {
+                if (!winner.complete(response)) {
+                    closeQuietly(response);
+                }
+            } else if (pendingRequests.decrementAndGet() == 0) {
+                if (error != null) {
+                    winner.completeExceptionally(error);
+                } else if (!winner.complete(response)) {
+                    closeQuietly(response);
+                }
+            } else if (response != null) {
+                closeQuietly(response);
+            }
+        };
+        first.whenComplete(onComplete);
+        second.whenComplete(onComplete);
+        return await(winner);
+    }
+
+    private boolean isHedged(Request request) {
+        if (request.httpMethod() != Request.HttpMethod.GET
+                    || request.requestTemplate() == null
+                    || request.requestTemplate().methodMetadata() == null) {
+            return false;
+        }
+        String configKey = request.requestTemplate().methodMetadata().configKey();
+        int parametersStart = configKey.indexOf('(');
+        return hedgedConfigKeys.contains(configKey)
+                       || parametersStart > 0 && hedgedConfigKeys.contains(configKey.substring(0, parametersStart));
+    }
+
+    private boolean tryAcquireRetry() {
+        if (!tryAcquireBudget()) {
+            return false;
+        }
+        hedgedRequests.incrementAndGet();
+        return true;
+    }
+
+    private CompletableFuture<Response> trySubmitHedge(Request request, Request.Options options) {
+        if (!tryAcquireBudget()) {
+            return null;
+        }
+        try {
+            CompletableFuture<Response> hedge = submit(request, options);
+            hedgedRequests.incrementAndGet();
+            return hedge;
+        } catch (RejectedExecutionException e) {
+            releaseBudget();
+            return null;
+        }
+    }
+
+    private CompletableFuture<Response> submit(Request request, Request.Options options) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return delegate.execute(request, options);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private Response await(CompletableFuture<Response> call) throws IOException {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.thenAccept(HedgingClient::closeQuietly);
+            throw new InterruptedIOException("Interrupted while waiting for Ledgers response");
+        }
+    }
+
+    private IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    private synchronized void earnBudget() {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + budgetRatio);
+    }
+
+    private synchronized boolean hasBudget() {
+        return budgetTokens >= 1;
+    }
+
+    private synchronized boolean tryAcquireBudget() {
+        if (budgetTokens < 1) {
+            return false;
+        }
+        budgetTokens--;
+        return true;
+    }
+
+    private synchronized void releaseBudget() {
+        budgetTokens = Math.min(MAX_BUDGET_TOKENS, budgetTokens + 1);
+    }
+
+    private static void closeQuietly(Response response) {
+        if (response != null) {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feign client isolating one Ledgers client from the others: a bulkhead limits the number of concurrent calls and
+ * a circuit breaker stops calling Ledgers while most calls fail.
+ * <p>
+ * Rejected calls are answered with 503 Service Unavailable without calling Ledgers, so they end up in the usual
+ * FeignException handling of the caller. IO errors and 5xx responses count as failures for the circuit breaker.
+ * <p>
+ * A call keeps its slot in the bulkhead until the response body is closed, so that reading and decoding a large
+ * response is limited as well. Feign closes the body after decoding it.
+ */
+public class IsolatingClient implements Client {
+    static final String BULKHEAD_FULL = "BULKHEAD_FULL";
+    static final String CIRCUIT_BREAKER_OPEN = "CIRCUIT_BREAKER_OPEN";
+    private static final Map<String, Collection<String>> JSON_HEADERS = Collections.singletonMap("Content-Type", Collections.singletonList("application/json"));
+
+    private final Client delegate;
+    private final Semaphore bulkhead;
+    private final long maxWaitMs;
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * @param delegate           client performing the calls
+     * @param maxConcurrentCalls max number of concurrent calls, not limited if not positive
+     * @param maxWaitMs          time a call may wait for a free slot in the bulkhead
+     * @param circuitBreaker     circuit breaker of the client, null to call Ledgers regardless of failures
+     */
+    IsolatingClient(Client delegate, int maxConcurrentCalls, long maxWaitMs, CircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.bulkhead = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+        this.maxWaitMs = maxWaitMs;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (!tryAcquireBulkhead()) {
+            return rejected(request, BULKHEAD_FULL);
+        }
+        if (bulkhead == null) {
+            return executeIsolated(request, options);
+        }
+        Response response = null;
+        try {
+            response = executeIsolated(request, options);
+        } finally {
+            if (response == null || response.body() == null) {
+                bulkhead.release();
+            }
+        }
+        return response.toBuilder()
+                       .body(new BulkheadReleasingBody(response.body(), bulkhead))
+                       .build();
+    }
+
+    CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker != null ? circuitBreaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    private Response executeIsolated(Request request, Request.Options options) throws IOException {
+        if (circuitBreaker == null) {
+            return delegate.execute(request, options);
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return rejected(request, CIRCUIT_BREAKER_OPEN);
+        }
+        return executeWithCircuitBreaker(request, options);
+    }
+
+    private Response executeWithCircuitBreaker(Request request, Request.Options options) throws IOException {
+        Response response;
+        try {
+            response = delegate.execute(request, options);
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        if (response.status() >= 500) {
+            circuitBreaker.onFailure();
+        } else {
+            circuitBreaker.onSuccess();
+        }
+        return response;
+    }
+
+    private boolean tryAcquireBulkhead() throws IOException {
+        if (bulkhead == null) {
+            return true;
+        }
+        try {
+            return bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free Ledgers call slot");
+        }
+    }
+
+    private Response rejected(Request request, String errorCode) {
+        String body = "{\"errorCode\":\"" + errorCode + "\"}";
+        return Response.builder()
+                       .status(503)
+                       .reason("Service Unavailable")
+                       .headers(JSON_HEADERS)
+                       .request(request)
+                       .body(body, StandardCharsets.UTF_8)
+                       .build();
+    }
+
+    /**
+     * Response body giving the bulkhead slot back once it is closed, either directly or by closing the stream or
+     * reader obtained from it.
+     */
+    private static final class BulkheadReleasingBody implements Response.Body {
+        private final Response.Body body;
+        private final Semaphore bulkhead;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private BulkheadReleasingBody(Response.Body body, Semaphore bulkhead) {
+            this.body = body;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Integer length() {
+            return body.length();
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return body.isRepeatable();
+        }
+
+        @Override
+        public InputStream asInputStream() throws IOException {
+            return new FilterInputStream(body.asInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Reader asReader(Charset charset) throws IOException {
+            return new FilterReader(body.asReader(charset)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                body.close();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                bulkhead.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import feign.Response;
+import feign.Util;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decodes JSON responses by reading the body stream directly with an {@link ObjectReader} prepared once per
+ * return type, e.g. `CustomPageImpl<TransactionTO>`, instead of buffering the body for the message converters.
+ * The object mapper should be the one of the JSON message converter, so that dates and unknown properties are
+ * handled exactly as by the delegate. It is resolved on first use, as the converters are.
+ * Responses without JSON content type, return types not mapped from JSON (`String`, `byte[]`, `Void`) and all
+ * responses if there is no object mapper are passed to the delegate.
+ */
+public class JacksonStreamingDecoder implements Decoder {
+    private final Supplier<ObjectMapper> objectMapperSupplier;
+    private final Decoder delegate;
+    private final Map<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private volatile Optional<ObjectMapper> objectMapper;
+
+    public JacksonStreamingDecoder(Supplier<ObjectMapper> objectMapperSupplier, Decoder delegate) {
+        this.objectMapperSupplier = objectMapperSupplier;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException {
+        ObjectMapper mapper = getObjectMapper().orElse(null);
+        if (mapper == null || !isJsonResponse(response) || type == String.class || type == byte[].class || type == Void.class) {
+            return delegate.decode(response, type);
+        }
+        if (response.status() == 204 || response.body() == null) {
+            return Util.emptyValueOf(type);
+        }
+
+        try (InputStream body = new BufferedInputStream(response.body().asInputStream())) {
+            body.mark(1);
+            if (body.read() == -1) {
+                return Util.emptyValueOf(type);
+            }
+            body.reset();
+            return readers.computeIfAbsent(type, t -> mapper.readerFor(mapper.constructType(t)))
+                           .readValue(body);
+        } catch (IOException e) {
+            throw new DecodeException(response.status(), "Can't decode response: " + e.getMessage(), response.request(), e);
+        }
+    }
+
+    private Optional<ObjectMapper> getObjectMapper() {
+        Optional<ObjectMapper> mapper = objectMapper;
+        if (mapper == null) {
+            mapper = Optional.ofNullable(objectMapperSupplier.get());
+            objectMapper = mapper;
+        }
+        return mapper;
+    }
+
+    private boolean isJsonResponse(Response response) {
+        Collection<String> contentType = response.headers().get(HttpHeaders.CONTENT_TYPE);
+        if (contentType == null || contentType.isEmpty()) {
+            // decided by the delegate as before, message converters treat a body without content type as octet stream
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType.iterator().next());
+            return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType) || mediaType.getSubtype().endsWith("+json");
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Hedge delay of a client method taken from the p95 latency of its successful calls, as recorded by
+ * {@link MeteredClient}. The fixed fallback delay is used until a method has been called often enough for the
+ * percentile to be meaningful. The delay of a method is recalculated at most every {@value #REFRESH_SECONDS} seconds.
+ */
+class LatencyPercentileHedgeDelay implements ToLongFunction<String> {
+    static final double PERCENTILE = 0.95;
+    static final long MIN_CALLS = 20;
+    private static final long REFRESH_SECONDS = 10;
+
+    private final MeterRegistry registry;
+    private final String clientName;
+    private final long fallbackDelayMs;
+    private final Map<String, CachedDelay> delays = new ConcurrentHashMap<>();
+
+    LatencyPercentileHedgeDelay(MeterRegistry registry, String clientName, long fallbackDelayMs) {
+        this.registry = registry;
+        this.clientName = clientName;
+        this.fallbackDelayMs = fallbackDelayMs;
+    }
+
+    @Override
+    public long applyAsLong(String configKey) {
+        long now = System.nanoTime();
+        CachedDelay delay = delays.get(configKey);
+        if (delay == null || now - delay.calculatedAt > TimeUnit.SECONDS.toNanos(REFRESH_SECONDS)) {
+            delay = new CachedDelay(calculateDelayMs(configKey), now);
+            delays.put(configKey, delay);
+        }
+        return delay.delayMs;
+    }
+
+    private long calculateDelayMs(String configKey) {
+        long calls = 0;
+        double latencyMs = 0;
+        for (Timer timer : registry.find(MeteredClient.REQUESTS_METRIC).tag("client", clientName).tag("method", configKey).timers()) {
+            String status = timer.getId().getTag("status");
+            if (status == null || !status.startsWith("2")) {
+                continue;
+            }
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            calls += snapshot.count();
+            for (ValueAtPercentile value : snapshot.percentileValues()) {
+                if (value.percentile() == PERCENTILE) {
+                    latencyMs = Math.max(latencyMs, value.value(TimeUnit.MILLISECONDS));
+                }
+            }
+        }
+        return calls >= MIN_CALLS && latencyMs > 0
+                       ? (long) Math.ceil(latencyMs)
+                       : fallbackDelayMs;
+    }
+
+    private static final class CachedDelay {
+        private final long delayMs;
+        private final long calculatedAt;
+
+        private CachedDelay(long delayMs, long calculatedAt) {
+            this.delayMs = delayMs;
+            this.calculatedAt = calculatedAt;
+        }
+    }
+}
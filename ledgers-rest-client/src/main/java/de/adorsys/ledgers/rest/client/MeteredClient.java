@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Client;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Feign client recording the latency of every call per client interface method, HTTP status and error code
+ * returned by Ledgers, together with the number of calls currently in flight.
+ * <p>
+ * Error bodies are buffered to read the error code, but only up to {@value #MAX_ERROR_BODY_SIZE} bytes. The rest of
+ * a larger body is streamed to the decoder and the call is recorded with the error code {@code unknown}.
+ */
+public class MeteredClient implements Client {
+    private static final String METRIC_PREFIX = "xs2a.ledgers.http-client";
+    static final String REQUESTS_METRIC = METRIC_PREFIX + ".requests";
+    private static final String ERROR_CODE_FIELD = "errorCode";
+    private static final String NONE = "none";
+    private static final String UNKNOWN = "unknown";
+    private static final String IO_ERROR = "IO_ERROR";
+    // error codes are enum names in Ledgers, anything else is not used as a tag to keep the number of series bounded
+    private static final Pattern ERROR_CODE_PATTERN = Pattern.compile("[A-Z][A-Z0-9_]{0,63}");
+    static final int MAX_ERROR_BODY_SIZE = 64 * 1024;
+
+    private final Client delegate;
+    private final String clientName;
+    private final MeterRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    // meters are registered once per method, status and error code instead of being looked up on every call
+    private final Map<List<String>, CallMeters> meters = new ConcurrentHashMap<>();
+
+    public MeteredClient(Client delegate, String clientName, MeterRegistry registry, ObjectMapper objectMapper) {
+        this.delegate = delegate;
+        this.clientName = clientName;
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        Gauge.builder(METRIC_PREFIX + ".in-flight", inFlightRequests, AtomicInteger::get)
+                .description("Ledgers calls waiting for a response")
+                .tag("client", clientName)
+                .register(registry);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String status = IO_ERROR;
+        String errorCode = NONE;
+        inFlightRequests.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            Response response = delegate.execute(request, options);
+            status = String.valueOf(response.status());
+            if (response.status() >= 400 && response.body() != null) {
+                // error bodies may be gzip compressed, see GzipNegotiation
+                InputStream inputStream = GzipNegotiation.decompress(response.body().asInputStream());
+                byte[] body = readAtMost(inputStream);
+                if (body.length < MAX_ERROR_BODY_SIZE) {
+                    inputStream.close();
+                    errorCode = readErrorCode(body);
+                    response = response.toBuilder()
+                                       .headers(getDecodedHeaders(response, body.length))
+                                       .body(body)
+                                       .build();
+                } else {
+                    errorCode = UNKNOWN;
+                    response = response.toBuilder()
+                                       .headers(getDecodedHeaders(response, null))
+                                       .body(new SequenceInputStream(new ByteArrayInputStream(body), inputStream), null)
+                                       .build();
+                }
+            }
+            return response;
+        } finally {
+            long duration = System.nanoTime() - start;
+            inFlightRequests.decrementAndGet();
+            record(getMethod(request), status, errorCode, duration);
+        }
+    }
+
+    private void record(String method, String status, String errorCode, long durationNanos) {
+        CallMeters callMeters = meters.computeIfAbsent(Arrays.asList(method, status, errorCode), key -> registerMeters(method, status, errorCode));
+        callMeters.timer.record(durationNanos, TimeUnit.NANOSECONDS);
+        if (callMeters.errors != null) {
+            callMeters.errors.increment();
+        }
+    }
+
+    private CallMeters registerMeters(String method, String status, String errorCode) {
+        Tags tags = Tags.of("client", clientName, "method", method, "status", status, "error_code", errorCode);
+        Timer timer = Timer.builder(REQUESTS_METRIC)
+                              .description("Latency of Ledgers calls")
+                              .tags(tags)
+                              .publishPercentiles(0.5, 0.95, 0.99)
+                              .register(registry);
+        Counter errors = null;
+        if (!status.startsWith("2") && !status.startsWith("3")) {
+            errors = Counter.builder(METRIC_PREFIX + ".errors")
+                             .description("Failed Ledgers calls")
+                             .tags(tags)
+                             .register(registry);
+        }
+        return new CallMeters(timer, errors);
+    }
+
+    private String getMethod(Request request) {
+        RequestTemplate template = request.requestTemplate();
+        return template != null && template.methodMetadata() != null
+                       ? template.methodMetadata().configKey()
+                       : UNKNOWN;
+    }
+
+    private byte[] readAtMost(InputStream inputStream) throws IOException {
+        try {
+            return inputStream.readNBytes(MAX_ERROR_BODY_SIZE);
+        } catch (IOException | RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    private Map<String, Collection<String>> getDecodedHeaders(Response response, Integer contentLength) {
+        // the body is stored decompressed, the headers must not announce the original encoding any more
+        Map<String, Collection<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(response.headers());
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null) {
+            headers.put(HttpHeaders.CONTENT_LENGTH, Collections.singletonList(String.valueOf(contentLength)));
+        }
+        return headers;
+    }
+
+    private String readErrorCode(byte[] body) {
+        if (body.length == 0) {
+            return NONE;
+        }
+        try {
+            JsonNode errorCode = objectMapper.readTree(body).get(ERROR_CODE_FIELD);
+            if (errorCode == null) {
+                return NONE;
+            }
+            return ERROR_CODE_PATTERN.matcher(errorCode.asText()).matches()
+                           ? errorCode.asText()
+                           : UNKNOWN;
+        } catch (IOException | RuntimeException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static final class CallMeters {
+        private final Timer timer;
+        private final Counter errors;
+
+        private CallMeters(Timer timer, Counter errors) {
+            this.timer = timer;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import de.adorsys.ledgers.middleware.rest.utils.Constants;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feign client letting concurrent identical GET requests share one call to the server.
+ * <p>
+ * Requests are identical if they have the same URL and are authorised with the same bearer token. The first request
+ * is sent, the others wait for its response and get a copy of it. The response is buffered only if another request
+ * actually joined the call, otherwise it is passed on as is and its body stays a stream. Nothing is kept once
+ * the call is completed, so a request never gets a response older than itself. Other HTTP methods are passed
+ * to the delegate as is.
+ */
+public class SingleFlightClient implements Client {
+    private final Client delegate;
+    private final Map<String, InFlightCall> inFlightCalls = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    public SingleFlightClient(Client delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        if (request.httpMethod() != Request.HttpMethod.GET) {
+            return delegate.execute(request, options);
+        }
+
+        String key = buildKey(request);
+        InFlightCall call = new InFlightCall();
+        InFlightCall inFlightCall = inFlightCalls.compute(key, (k, existingCall) -> existingCall == null ? call : existingCall.join());
+        if (inFlightCall != call) {
+            coalescedRequests.incrementAndGet();
+            return await(inFlightCall.response).toResponse(request);
+        }
+
+        Response response;
+        try {
+            response = delegate.execute(request, options);
+        } catch (IOException | RuntimeException e) {
+            inFlightCalls.remove(key, call);
+            call.response.completeExceptionally(e);
+            throw e;
+        }
+
+        // requests can't join the call any more once it is removed, so the number of followers is final here
+        inFlightCalls.remove(key, call);
+        if (!call.hasFollowers()) {
+            return response;
+        }
+
+        try {
+            BufferedResponse bufferedResponse = BufferedResponse.of(response);
+            call.response.complete(bufferedResponse);
+            return bufferedResponse.toResponse(request);
+        } catch (IOException | RuntimeException e) {
+            call.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    private String buildKey(Request request) {
+        Collection<String> authorisation = request.headers().getOrDefault(Constants.AUTH_HEADER_NAME, Collections.emptyList());
+        return String.join(",", authorisation) + ' ' + request.url();
+    }
+
+    private BufferedResponse await(CompletableFuture<BufferedResponse> call) throws IOException {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for identical request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static class InFlightCall {
+        private final CompletableFuture<BufferedResponse> response = new CompletableFuture<>();
+        private final AtomicInteger followers = new AtomicInteger();
+
+        private InFlightCall join() {
+            followers.incrementAndGet();
+            return this;
+        }
+
+        private boolean hasFollowers() {
+            return followers.get() > 0;
+        }
+    }
+
+    private static class BufferedResponse {
+        private final int status;
+        private final String reason;
+        private final Map<String, Collection<String>> headers;
+        private final byte[] body;
+
+        private BufferedResponse(int status, String reason, Map<String, Collection<String>> headers, byte[] body) {
+            this.status = status;
+            this.reason = reason;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private static BufferedResponse of(Response response) throws IOException {
+            try (Response closeableResponse = response) {
+                byte[] body = null;
+                if (closeableResponse.body() != null) {
+                    try (InputStream inputStream = closeableResponse.body().asInputStream()) {
+                        body = Util.toByteArray(inputStream);
+                    }
+                }
+                return new BufferedResponse(closeableResponse.status(), closeableResponse.reason(), closeableResponse.headers(), body);
+            }
+        }
+
+        private Response toResponse(Request request) {
+            return Response.builder()
+                           .status(status)
+                           .reason(reason)
+                           .headers(headers)
+                           .request(request)
+                           .body(body)
+                           .build();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
+import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AccountRestAsyncClientTest {
+    private static final String ACCOUNT_ID = "accountId";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String CALLER_ACCESS_TOKEN = "caller_access_token";
+
+    @Mock
+    private AccountRestClient accountRestClient;
+
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthRequestInterceptor();
+    private ExecutorService executor;
+    private AccountRestAsyncClient accountRestAsyncClient;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        accountRestAsyncClient = new AccountRestAsyncClient(accountRestClient, authRequestInterceptor, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        authRequestInterceptor.setAccessToken(null);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void getBalances_shouldCallClientOnExecutorWithGivenToken() throws Exception {
+        List<AccountBalanceTO> balances = Collections.singletonList(new AccountBalanceTO());
+        AtomicReference<String> tokenOfCall = new AtomicReference<>();
+        AtomicReference<Thread> threadOfCall = new AtomicReference<>();
+        when(accountRestClient.getBalances(ACCOUNT_ID)).thenAnswer(invocation -> {
+            tokenOfCall.set(authRequestInterceptor.getAccessToken());
+            threadOfCall.set(Thread.currentThread());
+            return ResponseEntity.ok(balances);
+        });
+        authRequestInterceptor.setAccessToken(CALLER_ACCESS_TOKEN);
+
+        ResponseEntity<List<AccountBalanceTO>> response = accountRestAsyncClient.getBalances(ACCESS_TOKEN, ACCOUNT_ID).get(5, TimeUnit.SECONDS);
+
+        assertEquals(balances, response.getBody());
+        assertEquals(ACCESS_TOKEN, tokenOfCall.get());
+        assertNotSame(Thread.currentThread(), threadOfCall.get());
+        assertEquals(CALLER_ACCESS_TOKEN, authRequestInterceptor.getAccessToken());
+    }
+
+    @Test
+    void getBalances_shouldClearTokenOfExecutorThreadAfterCall() throws Exception {
+        when(accountRestClient.getBalances(ACCOUNT_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+
+        accountRestAsyncClient.getBalances(ACCESS_TOKEN, ACCOUNT_ID).get(5, TimeUnit.SECONDS);
+        String tokenAfterCall = executor.submit(authRequestInterceptor::getAccessToken).get(5, TimeUnit.SECONDS);
+
+        assertNull(tokenAfterCall);
+    }
+
+    @Test
+    void getBalances_clientFailed_shouldCompleteExceptionally() {
+        FeignException feignException = FeignException.errorStatus("getBalances", TestRequests.response(TestRequests.request("getBalances"), 404, new byte[0]));
+        when(accountRestClient.getBalances(ACCOUNT_ID)).thenThrow(feignException);
+
+        CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balances = accountRestAsyncClient.getBalances(ACCESS_TOKEN, ACCOUNT_ID);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> balances.get(5, TimeUnit.SECONDS));
+        assertSame(feignException, exception.getCause());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+    private static final long OPEN_DURATION_MS = 50;
+
+    @Test
+    void onFailure_failureRateBelowThreshold_shouldStayClosed() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(4, 50, OPEN_DURATION_MS, 1);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void onFailure_windowNotFull_shouldStayClosed() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(4, 50, OPEN_DURATION_MS, 1);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void onFailure_failureRateReached_shouldOpenAndReject() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(4, 50, OPEN_DURATION_MS, 1);
+
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void onFailure_oldOutcomesLeaveWindow_shouldCountOnlyLastCalls() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 100, OPEN_DURATION_MS, 1);
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void tryAcquirePermission_openDurationPassed_shouldPermitLimitedTrialCalls() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker(2);
+
+        Thread.sleep(OPEN_DURATION_MS * 2);
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void onSuccess_allTrialCallsSucceeded_shouldClose() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker(2);
+        Thread.sleep(OPEN_DURATION_MS * 2);
+
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void onFailure_trialCallFailed_shouldOpenAgain() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker(2);
+        Thread.sleep(OPEN_DURATION_MS * 2);
+
+        circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private static CircuitBreaker openCircuitBreaker(int halfOpenCalls) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 100, OPEN_DURATION_MS, halfOpenCalls);
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Client;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeignConfigTest {
+    private static final String CLIENT_NAME = "ledgersAccount";
+
+    private final FeignConfig feignConfig = new FeignConfig();
+    private final Map<String, Object> properties = new HashMap<>();
+    private final StandardEnvironment environment = new StandardEnvironment();
+    private final StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    FeignConfigTest() {
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+    }
+
+    @Test
+    void feignClient_defaults_shouldDecorateTransport() throws IOException {
+        beanFactory.addBean("meterRegistry", registry);
+
+        try (CloseableHttpClient httpClient = buildHttpClient()) {
+            beanFactory.addBean("feignHttpClient", httpClient);
+
+            Client client = buildFeignClient(true);
+
+            assertTrue(client instanceof MeteredClient);
+            Client singleFlightClient = delegateOf(client);
+            assertTrue(singleFlightClient instanceof SingleFlightClient);
+            Client isolatingClient = delegateOf(singleFlightClient);
+            assertTrue(isolatingClient instanceof IsolatingClient);
+            assertTrue(delegateOf(isolatingClient) instanceof ApacheHttp5Client);
+            assertNull(ReflectionTestUtils.getField(isolatingClient, "circuitBreaker"));
+            assertNull(ReflectionTestUtils.getField(isolatingClient, "bulkhead"));
+            assertNull(registry.find("xs2a.ledgers.http-client.circuit-breaker.state").gauge());
+            assertNotNull(registry.get("xs2a.ledgers.http-client.coalesced").tag("client", CLIENT_NAME).functionCounter());
+        }
+    }
+
+    @Test
+    void feignClient_noPoolNoRegistry_shouldUseDefaultTransportWithoutMetrics() {
+        Client client = buildFeignClient(false);
+
+        assertTrue(client instanceof IsolatingClient);
+        assertTrue(delegateOf(client) instanceof Client.Default);
+    }
+
+    @Test
+    void feignClient_circuitBreakerEnabledForClient_shouldOnlyIsolateThatClient() {
+        beanFactory.addBean("meterRegistry", registry);
+        properties.put("xs2a.ledgers.http-client." + CLIENT_NAME + ".circuit-breaker.enabled", "true");
+
+        Client client = buildFeignClient(false);
+        Client cmsClient = feignConfig.feignClient("cmsPsuPis", false, environment,
+                                                   beanFactory.getBeanProvider(CloseableHttpClient.class),
+                                                   beanFactory.getBeanProvider(MeterRegistry.class), new ObjectMapper());
+
+        assertNotNull(ReflectionTestUtils.getField(delegateOf(client), "circuitBreaker"));
+        assertNotNull(registry.get("xs2a.ledgers.http-client.circuit-breaker.state").tag("client", CLIENT_NAME).gauge());
+        assertNull(ReflectionTestUtils.getField(delegateOf(cmsClient), "circuitBreaker"));
+    }
+
+    @Test
+    void feignClient_hedgingEnabled_shouldHedgeBelowSingleFlight() {
+        properties.put("xs2a.ledgers.http-client." + CLIENT_NAME + ".hedging.enabled", "true");
+        properties.put("xs2a.ledgers.http-client." + CLIENT_NAME + ".hedging.config-keys", "AccountRestClient#getBalances(String)");
+        properties.put("xs2a.ledgers.http-client.default.hedging.threads", "3");
+
+        Client client = buildFeignClient(true);
+
+        Client hedgingClient = delegateOf(client);
+        assertTrue(hedgingClient instanceof HedgingClient);
+        assertTrue(delegateOf(hedgingClient) instanceof IsolatingClient);
+        assertEquals(Set.of("AccountRestClient#getBalances(String)"), ReflectionTestUtils.getField(hedgingClient, "hedgedConfigKeys"));
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hedgingClient, "executor");
+        assertEquals(3, executor.getMaximumPoolSize());
+        executor.shutdownNow();
+    }
+
+    @Test
+    void feignClient_hedgingEnabledWithRegistry_shouldUseDefaultKeysOfClientAndPercentileDelay() {
+        beanFactory.addBean("meterRegistry", registry);
+        properties.put("xs2a.ledgers.http-client." + CLIENT_NAME + ".hedging.enabled", "true");
+
+        Client client = buildFeignClient(false);
+
+        Client hedgingClient = delegateOf(client);
+        assertEquals(Set.of("AccountRestClient#getTransactionByDatesPaged", "AccountRestClient#getBalances", "AccountRestClient#getAccountDetailsById"),
+                     ReflectionTestUtils.getField(hedgingClient, "hedgedConfigKeys"));
+        assertTrue(ReflectionTestUtils.getField(hedgingClient, "hedgeDelayMs") instanceof LatencyPercentileHedgeDelay);
+        ((ExecutorService) ReflectionTestUtils.getField(hedgingClient, "executor")).shutdownNow();
+    }
+
+    @Test
+    void feignClient_hedgingEnabledForOtherClient_shouldNotHedge() {
+        properties.put("xs2a.ledgers.http-client.ledgersPayment.hedging.enabled", "true");
+
+        Client client = buildFeignClient(true);
+
+        assertTrue(delegateOf(client) instanceof IsolatingClient);
+    }
+
+    @Test
+    void feignClient_clientPropertyOverridesDefault() {
+        properties.put("xs2a.ledgers.http-client.default.bulkhead.max-concurrent-calls", "10");
+        properties.put("xs2a.ledgers.http-client." + CLIENT_NAME + ".bulkhead.max-concurrent-calls", "4");
+
+        Client client = buildFeignClient(false);
+
+        Semaphore bulkhead = (Semaphore) ReflectionTestUtils.getField(client, "bulkhead");
+        assertEquals(4, bulkhead.availablePermits());
+    }
+
+    @Test
+    void feignHttpClient_shouldBindPoolMetrics() throws IOException {
+        properties.put("xs2a.ledgers.http-client." + CLIENT_NAME + ".max-connections", "7");
+        beanFactory.addBean("meterRegistry", registry);
+
+        try (CloseableHttpClient ignored = buildHttpClient()) {
+            assertEquals(7, registry.get("xs2a.ledgers.http-client.pool.max").tag("client", CLIENT_NAME).gauge().value());
+            assertEquals(0, registry.get("xs2a.ledgers.http-client.pool.leased").tag("client", CLIENT_NAME).gauge().value());
+        }
+    }
+
+    @Test
+    void feignHttpClient_clientPropertyOverridesDefault() throws IOException {
+        properties.put("xs2a.ledgers.http-client.default.max-connections", "10");
+        properties.put("xs2a.ledgers.http-client." + CLIENT_NAME + ".max-connections", "4");
+        beanFactory.addBean("meterRegistry", registry);
+
+        try (CloseableHttpClient ignored = buildHttpClient()) {
+            assertEquals(4, registry.get("xs2a.ledgers.http-client.pool.max").tag("client", CLIENT_NAME).gauge().value());
+        }
+    }
+
+    @Test
+    void feignHttpClient_noRegistry_shouldNotBindPoolMetrics() throws IOException {
+        try (CloseableHttpClient ignored = buildHttpClient()) {
+            assertTrue(registry.getMeters().isEmpty());
+        }
+    }
+
+    private CloseableHttpClient buildHttpClient() {
+        return feignConfig.feignHttpClient(CLIENT_NAME, environment, beanFactory.getBeanProvider(MeterRegistry.class));
+    }
+
+    private Client buildFeignClient(boolean singleFlightEnabled) {
+        return feignConfig.feignClient(CLIENT_NAME, singleFlightEnabled, environment,
+                                       beanFactory.getBeanProvider(CloseableHttpClient.class),
+                                       beanFactory.getBeanProvider(MeterRegistry.class), new ObjectMapper());
+    }
+
+    private static Client delegateOf(Client client) {
+        return (Client) ReflectionTestUtils.getField(client, "delegate");
+    }
+}
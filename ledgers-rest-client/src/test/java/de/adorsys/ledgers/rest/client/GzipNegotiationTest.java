@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.FeignException;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.codec.Decoder;
+import feign.codec.ErrorDecoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import static de.adorsys.ledgers.rest.client.TestRequests.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipNegotiationTest {
+    private static final long MIN_RESPONSE_SIZE = 100;
+    private static final byte[] SMALL_BODY = "[]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LARGE_BODY = ("[" + "{\"transactionId\":\"1\"},".repeat(20) + "{}]").getBytes(StandardCharsets.UTF_8);
+    private static final Map<String, Collection<String>> GZIP_ENCODED = Collections.singletonMap(HttpHeaders.CONTENT_ENCODING, Collections.singletonList("gzip"));
+    private static final Decoder BODY_DECODER = (response, type) -> new String(readBody(response), StandardCharsets.UTF_8);
+
+    private final GzipNegotiation gzipNegotiation = new GzipNegotiation(true, MIN_RESPONSE_SIZE);
+
+    @Test
+    void apply_unknownMethod_shouldAcceptGzip() {
+        RequestTemplate template = template("getBalances");
+
+        gzipNegotiation.apply(template);
+
+        assertEquals(Collections.singletonList("gzip"), template.headers().get(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void apply_disabled_shouldNotAcceptGzip() {
+        RequestTemplate template = template("getBalances");
+
+        new GzipNegotiation(false, MIN_RESPONSE_SIZE).apply(template);
+
+        assertFalse(template.headers().containsKey(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void apply_lastResponseSmall_shouldNotAcceptGzipForThisMethodOnly() throws IOException {
+        gzipNegotiation.decoder(BODY_DECODER).decode(response(request("getBalances"), 200, SMALL_BODY), String.class);
+
+        RequestTemplate smallResponseTemplate = template("getBalances");
+        RequestTemplate otherTemplate = template("getPaymentStatusById");
+        gzipNegotiation.apply(smallResponseTemplate);
+        gzipNegotiation.apply(otherTemplate);
+
+        assertFalse(smallResponseTemplate.headers().containsKey(HttpHeaders.ACCEPT_ENCODING));
+        assertTrue(otherTemplate.headers().containsKey(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void apply_responseLargeAgain_shouldAcceptGzipAgain() throws IOException {
+        Decoder decoder = gzipNegotiation.decoder(BODY_DECODER);
+        decoder.decode(response(request("getBalances"), 200, SMALL_BODY), String.class);
+        decoder.decode(response(request("getBalances"), 200, LARGE_BODY), String.class);
+
+        RequestTemplate template = template("getBalances");
+        gzipNegotiation.apply(template);
+
+        assertTrue(template.headers().containsKey(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void apply_compressedResponse_shouldKeepAcceptingGzip() throws IOException {
+        byte[] compressedBody = gzip(SMALL_BODY);
+        gzipNegotiation.decoder(BODY_DECODER).decode(response(request("getBalances"), 200, compressedBody, GZIP_ENCODED), String.class);
+
+        RequestTemplate template = template("getBalances");
+        gzipNegotiation.apply(template);
+
+        assertTrue(template.headers().containsKey(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    void decoder_gzipBody_shouldBeDecompressed() throws IOException {
+        Object decoded = gzipNegotiation.decoder(BODY_DECODER)
+                                 .decode(response(request("getBalances"), 200, gzip(LARGE_BODY), GZIP_ENCODED), String.class);
+
+        assertEquals(new String(LARGE_BODY, StandardCharsets.UTF_8), decoded);
+    }
+
+    @Test
+    void decoder_gzipBodyWithoutHeader_shouldBeRecognisedByMagicBytes() throws IOException {
+        Object decoded = gzipNegotiation.decoder(BODY_DECODER)
+                                 .decode(response(request("getBalances"), 200, gzip(LARGE_BODY)), String.class);
+
+        assertEquals(new String(LARGE_BODY, StandardCharsets.UTF_8), decoded);
+    }
+
+    @Test
+    void decoder_gzipBody_shouldRemoveEncodingHeaders() throws IOException {
+        Decoder headerDecoder = (response, type) -> response.headers();
+        Map<?, ?> headers = (Map<?, ?>) gzipNegotiation.decoder(headerDecoder)
+                                                .decode(response(request("getBalances"), 200, gzip(LARGE_BODY), GZIP_ENCODED), Map.class);
+
+        assertFalse(headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void decoder_plainBody_shouldBePassedUnchanged() throws IOException {
+        Object decoded = gzipNegotiation.decoder(BODY_DECODER)
+                                 .decode(response(request("getBalances"), 200, LARGE_BODY), String.class);
+
+        assertEquals(new String(LARGE_BODY, StandardCharsets.UTF_8), decoded);
+    }
+
+    @Test
+    void decompress_shortBody_shouldNotBeTreatedAsGzip() throws IOException {
+        try (InputStream inputStream = GzipNegotiation.decompress(new ByteArrayInputStream(new byte[]{0x1f}))) {
+            assertArrayEquals(new byte[]{0x1f}, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    void errorDecoder_gzipBody_shouldBeDecompressed() throws IOException {
+        byte[] errorBody = "{\"errorCode\":\"NOT_FOUND\"}".getBytes(StandardCharsets.UTF_8);
+        ErrorDecoder errorDecoder = gzipNegotiation.errorDecoder(new ErrorDecoder.Default());
+
+        Exception exception = errorDecoder.decode(configKey("getBalances"), response(request("getBalances"), 404, gzip(errorBody), GZIP_ENCODED));
+
+        assertTrue(exception instanceof FeignException.NotFound);
+        assertArrayEquals(errorBody, ((FeignException) exception).content());
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.adorsys.ledgers.rest.client.TestRequests.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingClientTest {
+    private static final long HEDGE_DELAY_MS = 20;
+    private static final byte[] FIRST = "first".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SECOND = "second".getBytes(StandardCharsets.UTF_8);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_notConfiguredMethod_shouldNotHedge() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = hedgingClient((request, options) -> {
+            calls.incrementAndGet();
+            return response(request, 503, FIRST);
+        }, Set.of(configKey("getBalances")), 1.0);
+
+        Response response = client.execute(request("getPaymentStatusById"), OPTIONS);
+
+        assertEquals(503, response.status());
+        assertEquals(1, calls.get());
+        assertEquals(0, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_sameMethodNameOfOtherClient_shouldNotHedge() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = hedgingClient((request, options) -> {
+            calls.incrementAndGet();
+            return response(request, 503, FIRST);
+        }, Set.of("AccountRestClient#getBalances"), 1.0);
+
+        client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(1, calls.get());
+        assertEquals(0, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_configKeyWithoutParameters_shouldMatchMethod() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = hedgingClient((request, options) -> calls.incrementAndGet() == 1
+                                                                            ? response(request, 503, FIRST)
+                                                                            : response(request, 200, SECOND),
+                                             Set.of("TestClient#getBalances"), 1.0);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        assertArrayEquals(SECOND, readBody(response));
+        assertEquals(1, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_slowFirstRequest_shouldUseSecondAndCloseFirst() throws IOException, InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean firstClosed = new AtomicBoolean();
+        HedgingClient client = hedgingClient((request, options) -> {
+            if (calls.incrementAndGet() == 1) {
+                awaitRelease();
+                return closeTrackingResponse(request, firstClosed);
+            }
+            return response(request, 200, SECOND);
+        }, Set.of(configKey("getBalances")), 1.0);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+        release.countDown();
+
+        assertArrayEquals(SECOND, readBody(response));
+        assertEquals(1, client.getHedgedRequests());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!firstClosed.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(firstClosed.get());
+    }
+
+    @Test
+    void execute_fastFirstRequest_shouldNotHedge() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = hedgingClient((request, options) -> {
+            calls.incrementAndGet();
+            return response(request, 200, FIRST);
+        }, Set.of(configKey("getBalances")), 1.0);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        assertArrayEquals(FIRST, readBody(response));
+        assertEquals(1, calls.get());
+        assertEquals(0, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_failedFirstRequest_shouldHedgeRightAway() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = hedgingClient((request, options) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IOException("Connection reset");
+            }
+            return response(request, 200, SECOND);
+        }, Set.of(configKey("getBalances")), 1.0);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        assertArrayEquals(SECOND, readBody(response));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_failedFirstRequest_shouldRepeatOnCallerThread() throws IOException {
+        Thread caller = Thread.currentThread();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean repeatedOnCaller = new AtomicBoolean();
+        HedgingClient client = hedgingClient((request, options) -> {
+            if (calls.incrementAndGet() == 1) {
+                return response(request, 503, FIRST);
+            }
+            repeatedOnCaller.set(Thread.currentThread() == caller);
+            return response(request, 200, SECOND);
+        }, Set.of(configKey("getBalances")), 1.0);
+
+        client.execute(request("getBalances"), OPTIONS);
+
+        assertTrue(repeatedOnCaller.get());
+        assertEquals(1, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_budgetExhausted_shouldSendRequestOnCallerThread() throws IOException {
+        Thread caller = Thread.currentThread();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicBoolean sentOnCaller = new AtomicBoolean();
+        HedgingClient client = hedgingClient((request, options) -> {
+            calls.incrementAndGet();
+            sentOnCaller.set(Thread.currentThread() == caller);
+            return response(request, 503, FIRST);
+        }, Set.of(configKey("getBalances")), 0.0);
+        for (int i = 0; i < 10; i++) {
+            client.execute(request("getBalances"), OPTIONS);
+        }
+        calls.set(0);
+        sentOnCaller.set(false);
+
+        client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(1, calls.get());
+        assertTrue(sentOnCaller.get());
+        assertEquals(10, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_shouldUseDelayOfMethod() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = new HedgingClient((request, options) -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(HEDGE_DELAY_MS * 5);
+            }
+            return response(request, 200, FIRST);
+        }, Set.of(configKey("getBalances")), configKey -> HEDGE_DELAY_MS * 50, 1.0, executor);
+
+        client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(1, calls.get());
+        assertEquals(0, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_budgetExhausted_shouldReturnFirstResponse() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = hedgingClient((request, options) -> calls.incrementAndGet() % 2 == 1
+                                                                            ? response(request, 503, FIRST)
+                                                                            : response(request, 200, SECOND),
+                                             Set.of(configKey("getBalances")), 0.0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, client.execute(request("getBalances"), OPTIONS).status());
+        }
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(503, response.status());
+        assertEquals(10, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_executorSaturated_shouldSendRequestWithoutHedging() throws IOException {
+        ExecutorService rejectingExecutor = Executors.newSingleThreadExecutor();
+        rejectingExecutor.shutdown();
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = new HedgingClient((request, options) -> {
+            calls.incrementAndGet();
+            return response(request, 503, FIRST);
+        }, Set.of(configKey("getBalances")), configKey -> HEDGE_DELAY_MS, 1.0, rejectingExecutor);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(503, response.status());
+        assertEquals(1, calls.get());
+        assertEquals(0, client.getHedgedRequests());
+    }
+
+    @Test
+    void execute_hedgeRejected_shouldWaitForFirstRequest() throws IOException {
+        ExecutorService singleThreadExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        AtomicInteger calls = new AtomicInteger();
+        HedgingClient client = new HedgingClient((request, options) -> {
+            calls.incrementAndGet();
+            sleep(HEDGE_DELAY_MS * 5);
+            return response(request, 200, FIRST);
+        }, Set.of(configKey("getBalances")), configKey -> HEDGE_DELAY_MS, 1.0, singleThreadExecutor);
+
+        try {
+            Response response = client.execute(request("getBalances"), OPTIONS);
+
+            assertArrayEquals(FIRST, readBody(response));
+            assertEquals(1, calls.get());
+            assertEquals(0, client.getHedgedRequests());
+        } finally {
+            singleThreadExecutor.shutdownNow();
+        }
+    }
+
+    private HedgingClient hedgingClient(Client delegate, Set<String> hedgedConfigKeys, double budgetRatio) {
+        return new HedgingClient(delegate, hedgedConfigKeys, configKey -> HEDGE_DELAY_MS, budgetRatio, executor);
+    }
+
+    private void awaitRelease() throws InterruptedIOException {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static Response closeTrackingResponse(Request request, AtomicBoolean closed) {
+        return Response.builder()
+                       .status(200)
+                       .request(request)
+                       .headers(Collections.emptyMap())
+                       .body(new ByteArrayInputStream(FIRST) {
+                           @Override
+                           public void close() throws IOException {
+                               closed.set(true);
+                               super.close();
+                           }
+                       }, FIRST.length)
+                       .build();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.adorsys.ledgers.rest.client.TestRequests.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsolatingClientTest {
+    private static final byte[] BODY = "[]".getBytes(StandardCharsets.UTF_8);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_bulkheadFull_shouldRejectWith503() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        IsolatingClient client = new IsolatingClient((request, options) -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(request, 200, BODY);
+        }, 1, 10, null);
+        Future<Response> runningCall = executor.submit(() -> client.execute(request("getBalances"), OPTIONS));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Response rejected = client.execute(request("getBalances"), OPTIONS);
+        release.countDown();
+
+        assertEquals(503, rejected.status());
+        assertTrue(new String(readBody(rejected), StandardCharsets.UTF_8).contains(IsolatingClient.BULKHEAD_FULL));
+        assertEquals(200, runningCall.get(5, TimeUnit.SECONDS).status());
+    }
+
+    @Test
+    void execute_bulkheadSlotReleased_shouldPermitNextCall() throws IOException {
+        IsolatingClient client = new IsolatingClient((request, options) -> response(request, 200, BODY), 1, 0, null);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+        response.close();
+
+        assertEquals(200, response.status());
+        assertEquals(200, client.execute(request("getBalances"), OPTIONS).status());
+    }
+
+    @Test
+    void execute_bodyNotClosed_shouldKeepBulkheadSlot() throws IOException {
+        IsolatingClient client = new IsolatingClient((request, options) -> response(request, 200, BODY), 1, 0, null);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+        Response rejected = client.execute(request("getBalances"), OPTIONS);
+        assertArrayEquals(BODY, readBody(response));
+
+        assertEquals(503, rejected.status());
+        assertEquals(200, client.execute(request("getBalances"), OPTIONS).status());
+    }
+
+    @Test
+    void execute_bodyClosedTwice_shouldReleaseSlotOnce() throws IOException {
+        IsolatingClient client = new IsolatingClient((request, options) -> response(request, 200, BODY), 2, 0, null);
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        response.body().asInputStream().close();
+        response.close();
+        Semaphore bulkhead = (Semaphore) ReflectionTestUtils.getField(client, "bulkhead");
+
+        assertEquals(2, bulkhead.availablePermits());
+    }
+
+    @Test
+    void execute_ioError_shouldReleaseBulkheadSlot() {
+        IsolatingClient client = new IsolatingClient((request, options) -> {
+            throw new IOException("Connection refused");
+        }, 1, 0, null);
+
+        assertThrows(IOException.class, () -> client.execute(request("getBalances"), OPTIONS));
+        assertThrows(IOException.class, () -> client.execute(request("getBalances"), OPTIONS));
+    }
+
+    @Test
+    void execute_serverErrors_shouldOpenCircuitAndStopCallingLedgers() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        IsolatingClient client = new IsolatingClient((request, options) -> {
+            calls.incrementAndGet();
+            return response(request, 500, BODY);
+        }, 0, 0, new CircuitBreaker(2, 100, 60_000, 1));
+
+        client.execute(request("getBalances"), OPTIONS);
+        client.execute(request("getBalances"), OPTIONS);
+        Response rejected = client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreakerState());
+        assertEquals(2, calls.get());
+        assertEquals(503, rejected.status());
+        assertTrue(new String(readBody(rejected), StandardCharsets.UTF_8).contains(IsolatingClient.CIRCUIT_BREAKER_OPEN));
+    }
+
+    @Test
+    void execute_ioErrors_shouldCountAsFailures() {
+        IsolatingClient client = new IsolatingClient((request, options) -> {
+            throw new IOException("Connection refused");
+        }, 0, 0, new CircuitBreaker(2, 100, 60_000, 1));
+
+        assertThrows(IOException.class, () -> client.execute(request("getBalances"), OPTIONS));
+        assertThrows(IOException.class, () -> client.execute(request("getBalances"), OPTIONS));
+
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreakerState());
+    }
+
+    @Test
+    void execute_clientErrors_shouldNotOpenCircuit() throws IOException {
+        IsolatingClient client = new IsolatingClient((request, options) -> response(request, 404, BODY),
+                                                     0, 0, new CircuitBreaker(2, 100, 60_000, 1));
+
+        client.execute(request("getBalances"), OPTIONS);
+        client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreakerState());
+    }
+
+    @Test
+    void execute_halfOpenTrialSucceeded_shouldCloseCircuit() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        IsolatingClient client = new IsolatingClient((request, options) -> response(request, calls.incrementAndGet() == 1 ? 500 : 200, BODY),
+                                                     0, 0, new CircuitBreaker(1, 100, 50, 1));
+        client.execute(request("getBalances"), OPTIONS);
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreakerState());
+
+        Thread.sleep(100);
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(200, response.status());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreakerState());
+    }
+}
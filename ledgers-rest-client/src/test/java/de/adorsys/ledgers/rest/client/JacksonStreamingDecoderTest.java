@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Response;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static de.adorsys.ledgers.rest.client.TestRequests.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class JacksonStreamingDecoderTest {
+    private static final String DELEGATE_RESULT = "decoded by delegate";
+    private static final byte[] BALANCE = "{\"amount\":\"100.00\",\"currency\":\"EUR\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BALANCE_WITH_UNKNOWN_PROPERTY = "{\"amount\":\"100.00\",\"currency\":\"EUR\",\"referenceDate\":\"2020-01-01\"}".getBytes(StandardCharsets.UTF_8);
+    private static final Map<String, Collection<String>> JSON = Collections.singletonMap(HttpHeaders.CONTENT_TYPE, Collections.singletonList(MediaType.APPLICATION_JSON_VALUE));
+
+    private final AtomicInteger delegateCalls = new AtomicInteger();
+    private final Decoder delegate = (response, type) -> {
+        delegateCalls.incrementAndGet();
+        return DELEGATE_RESULT;
+    };
+
+    @Test
+    void decode_jsonResponse_shouldReadBodyWithoutDelegate() throws IOException {
+        JacksonStreamingDecoder decoder = new JacksonStreamingDecoder(ObjectMapper::new, delegate);
+
+        Object balance = decoder.decode(response(request("getBalances"), 200, BALANCE, JSON), Balance.class);
+
+        assertEquals(new Balance("100.00", "EUR"), balance);
+        assertEquals(0, delegateCalls.get());
+    }
+
+    @Test
+    void decode_missingContentType_shouldUseDelegate() throws IOException {
+        JacksonStreamingDecoder decoder = new JacksonStreamingDecoder(ObjectMapper::new, delegate);
+
+        Object result = decoder.decode(response(request("getBalances"), 200, BALANCE), Balance.class);
+
+        assertEquals(DELEGATE_RESULT, result);
+        assertEquals(1, delegateCalls.get());
+    }
+
+    @Test
+    void decode_stringType_shouldUseDelegate() throws IOException {
+        JacksonStreamingDecoder decoder = new JacksonStreamingDecoder(ObjectMapper::new, delegate);
+
+        assertEquals(DELEGATE_RESULT, decoder.decode(response(request("getBalances"), 200, BALANCE, JSON), String.class));
+    }
+
+    @Test
+    void decode_noObjectMapper_shouldUseDelegate() throws IOException {
+        JacksonStreamingDecoder decoder = new JacksonStreamingDecoder(() -> null, delegate);
+
+        assertEquals(DELEGATE_RESULT, decoder.decode(response(request("getBalances"), 200, BALANCE, JSON), Balance.class));
+    }
+
+    @Test
+    void decode_emptyBody_shouldReturnEmptyValue() throws IOException {
+        JacksonStreamingDecoder decoder = new JacksonStreamingDecoder(ObjectMapper::new, delegate);
+        Type listType = List.class;
+
+        assertEquals(Collections.emptyList(), decoder.decode(response(request("getBalances"), 200, new byte[0], JSON), listType));
+    }
+
+    @Test
+    void decode_unknownProperty_shouldFailWithDefaultMapper() {
+        JacksonStreamingDecoder decoder = new JacksonStreamingDecoder(ObjectMapper::new, delegate);
+        Response response = response(request("getBalances"), 200, BALANCE_WITH_UNKNOWN_PROPERTY, JSON);
+
+        assertThrows(DecodeException.class, () -> decoder.decode(response, Balance.class));
+    }
+
+    @Test
+    void feignDecoder_shouldUseObjectMapperOfMessageConverter() throws IOException {
+        ObjectMapper converterObjectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        HttpMessageConverters messageConverters = new HttpMessageConverters(false, Collections.singletonList(new MappingJackson2HttpMessageConverter(converterObjectMapper)));
+        Decoder decoder = new FeignConfig().feignDecoder(false, () -> messageConverters, new GzipNegotiation(false, 0));
+
+        Object balance = decoder.decode(response(request("getBalances"), 200, BALANCE_WITH_UNKNOWN_PROPERTY, JSON), Balance.class);
+
+        assertEquals(new Balance("100.00", "EUR"), balance);
+    }
+
+    static class Balance {
+        public String amount;
+        public String currency;
+
+        Balance() {
+        }
+
+        Balance(String amount, String currency) {
+            this.amount = amount;
+            this.currency = currency;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Balance)) {
+                return false;
+            }
+            Balance balance = (Balance) o;
+            return amount.equals(balance.amount) && currency.equals(balance.currency);
+        }
+
+        @Override
+        public int hashCode() {
+            return amount.hashCode() * 31 + currency.hashCode();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyPercentileHedgeDelayTest {
+    private static final String CLIENT_NAME = "ledgersAccount";
+    private static final String CONFIG_KEY = "AccountRestClient#getBalances(String)";
+    private static final long FALLBACK_DELAY_MS = 500;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LatencyPercentileHedgeDelay hedgeDelay = new LatencyPercentileHedgeDelay(registry, CLIENT_NAME, FALLBACK_DELAY_MS);
+
+    @Test
+    void applyAsLong_enoughCalls_shouldReturnPercentileLatency() {
+        record("200", 100, LatencyPercentileHedgeDelay.MIN_CALLS);
+
+        long delayMs = hedgeDelay.applyAsLong(CONFIG_KEY);
+
+        // percentiles are approximated by the histogram of the timer
+        assertTrue(delayMs >= 80 && delayMs <= 130, "delay was " + delayMs);
+    }
+
+    @Test
+    void applyAsLong_tooFewCalls_shouldReturnFallback() {
+        record("200", 100, LatencyPercentileHedgeDelay.MIN_CALLS - 1);
+
+        assertEquals(FALLBACK_DELAY_MS, hedgeDelay.applyAsLong(CONFIG_KEY));
+    }
+
+    @Test
+    void applyAsLong_failedCalls_shouldBeIgnored() {
+        record("500", 100, LatencyPercentileHedgeDelay.MIN_CALLS);
+
+        assertEquals(FALLBACK_DELAY_MS, hedgeDelay.applyAsLong(CONFIG_KEY));
+    }
+
+    @Test
+    void applyAsLong_shouldCacheDelay() {
+        assertEquals(FALLBACK_DELAY_MS, hedgeDelay.applyAsLong(CONFIG_KEY));
+        record("200", 100, LatencyPercentileHedgeDelay.MIN_CALLS);
+
+        assertEquals(FALLBACK_DELAY_MS, hedgeDelay.applyAsLong(CONFIG_KEY));
+    }
+
+    private void record(String status, long latencyMs, long calls) {
+        Timer timer = Timer.builder(MeteredClient.REQUESTS_METRIC)
+                              .tags("client", CLIENT_NAME, "method", CONFIG_KEY, "status", status, "error_code", "none")
+                              .publishPercentiles(0.5, 0.95, 0.99)
+                              .register(registry);
+        for (int i = 0; i < calls; i++) {
+            timer.record(latencyMs, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static de.adorsys.ledgers.rest.client.TestRequests.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredClientTest {
+    private static final String CLIENT_NAME = "ledgers-account";
+    private static final String REQUESTS_METRIC = "xs2a.ledgers.http-client.requests";
+    private static final String ERRORS_METRIC = "xs2a.ledgers.http-client.errors";
+    private static final byte[] BODY = "[]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR_BODY = "{\"errorCode\":\"INSUFFICIENT_FUNDS\",\"devMessage\":\"Not enough money\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void execute_success_shouldRecordLatencyPerMethod() throws IOException {
+        MeteredClient client = new MeteredClient((request, options) -> response(request, 200, BODY), CLIENT_NAME, registry, objectMapper);
+
+        client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(1, registry.get(REQUESTS_METRIC)
+                                .tag("client", CLIENT_NAME)
+                                .tag("method", configKey("getBalances"))
+                                .tag("status", "200")
+                                .tag("error_code", "none")
+                                .timer().count());
+        assertNull(registry.find(ERRORS_METRIC).counter());
+        assertEquals(0, registry.get("xs2a.ledgers.http-client.in-flight").gauge().value());
+    }
+
+    @Test
+    void execute_errorResponse_shouldCountErrorCode() throws IOException {
+        MeteredClient client = new MeteredClient((request, options) -> response(request, 400, ERROR_BODY), CLIENT_NAME, registry, objectMapper);
+
+        Response response = client.execute(request("initiatePayment"), OPTIONS);
+
+        assertEquals(1, registry.get(ERRORS_METRIC)
+                                .tag("method", configKey("initiatePayment"))
+                                .tag("status", "400")
+                                .tag("error_code", "INSUFFICIENT_FUNDS")
+                                .counter().count());
+        assertArrayEquals(ERROR_BODY, readBody(response));
+    }
+
+    @Test
+    void execute_unexpectedErrorCode_shouldNotBeUsedAsTag() throws IOException {
+        byte[] body = "{\"errorCode\":\"<html>\"}".getBytes(StandardCharsets.UTF_8);
+        MeteredClient client = new MeteredClient((request, options) -> response(request, 500, body), CLIENT_NAME, registry, objectMapper);
+
+        client.execute(request("getBalances"), OPTIONS);
+
+        assertEquals(1, registry.get(ERRORS_METRIC).tag("error_code", "unknown").counter().count());
+    }
+
+    @Test
+    void execute_gzipErrorBody_shouldRemoveContentEncoding() throws IOException {
+        byte[] compressedBody = gzip(ERROR_BODY);
+        Map<String, Collection<String>> headers = new HashMap<>();
+        headers.put(HttpHeaders.CONTENT_ENCODING, Collections.singletonList("gzip"));
+        headers.put(HttpHeaders.CONTENT_LENGTH, Collections.singletonList(String.valueOf(compressedBody.length)));
+        MeteredClient client = new MeteredClient((request, options) -> response(request, 400, compressedBody, headers), CLIENT_NAME, registry, objectMapper);
+
+        Response response = client.execute(request("initiatePayment"), OPTIONS);
+
+        assertFalse(response.headers().containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(Collections.singletonList(String.valueOf(ERROR_BODY.length)), response.headers().get(HttpHeaders.CONTENT_LENGTH));
+        assertArrayEquals(ERROR_BODY, readBody(response));
+        assertEquals(1, registry.get(ERRORS_METRIC).tag("error_code", "INSUFFICIENT_FUNDS").counter().count());
+    }
+
+    @Test
+    void execute_repeatedCalls_shouldReuseMeters() throws IOException {
+        MeteredClient client = new MeteredClient((request, options) -> response(request, 400, ERROR_BODY), CLIENT_NAME, registry, objectMapper);
+
+        client.execute(request("initiatePayment"), OPTIONS);
+        int registeredMeters = registry.getMeters().size();
+        client.execute(request("initiatePayment"), OPTIONS);
+
+        assertEquals(registeredMeters, registry.getMeters().size());
+        assertEquals(2, registry.get(REQUESTS_METRIC).tag("error_code", "INSUFFICIENT_FUNDS").timer().count());
+        assertEquals(2, registry.get(ERRORS_METRIC).tag("error_code", "INSUFFICIENT_FUNDS").counter().count());
+    }
+
+    @Test
+    void execute_largeErrorBody_shouldStreamRemainder() throws IOException {
+        byte[] body = new byte[MeteredClient.MAX_ERROR_BODY_SIZE * 2];
+        Arrays.fill(body, (byte) 'x');
+        MeteredClient client = new MeteredClient((request, options) -> response(request, 500, body), CLIENT_NAME, registry, objectMapper);
+
+        Response response = client.execute(request("getBalances"), OPTIONS);
+
+        assertNull(response.body().length());
+        assertArrayEquals(body, readBody(response));
+        assertEquals(1, registry.get(ERRORS_METRIC).tag("error_code", "unknown").counter().count());
+    }
+
+    @Test
+    void execute_ioError_shouldBeRecorded() {
+        MeteredClient client = new MeteredClient((request, options) -> {
+            throw new IOException("Connection refused");
+        }, CLIENT_NAME, registry, objectMapper);
+        Request request = request("getBalances");
+
+        assertThrows(IOException.class, () -> client.execute(request, OPTIONS));
+
+        assertEquals(1, registry.get(ERRORS_METRIC).tag("status", "IO_ERROR").counter().count());
+        assertEquals(0, registry.get("xs2a.ledgers.http-client.in-flight").gauge().value());
+    }
+}
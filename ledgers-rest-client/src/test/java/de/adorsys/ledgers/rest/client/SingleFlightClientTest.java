@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.Util;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightClientTest {
+    private static final String URL = "http://ledgers/accounts/123/balances";
+    private static final String TOKEN = "Bearer token";
+    private static final byte[] BODY = "[{\"balanceType\":\"INTERIM_AVAILABLE\"}]".getBytes(StandardCharsets.UTF_8);
+    private static final Request.Options OPTIONS = new Request.Options();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_singleCaller_shouldPassResponseThroughUnbuffered() throws IOException {
+        Response delegateResponse = buildResponse(buildRequest(Request.HttpMethod.GET));
+        SingleFlightClient client = new SingleFlightClient((request, options) -> delegateResponse);
+
+        Response response = client.execute(buildRequest(Request.HttpMethod.GET), OPTIONS);
+
+        assertSame(delegateResponse, response);
+        assertEquals(0, client.getCoalescedRequests());
+    }
+
+    @Test
+    void execute_concurrentIdenticalCallers_shouldShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        SingleFlightClient client = new SingleFlightClient((request, options) -> {
+            calls.incrementAndGet();
+            awaitLatch(release);
+            return buildResponse(request);
+        });
+
+        Future<Response> leader = executor.submit(() -> client.execute(buildRequest(Request.HttpMethod.GET), OPTIONS));
+        waitFor(() -> calls.get() == 1);
+        Future<Response> follower = executor.submit(() -> client.execute(buildRequest(Request.HttpMethod.GET), OPTIONS));
+        waitFor(() -> client.getCoalescedRequests() == 1);
+        release.countDown();
+
+        assertArrayEquals(BODY, readBody(leader.get(5, TimeUnit.SECONDS)));
+        assertArrayEquals(BODY, readBody(follower.get(5, TimeUnit.SECONDS)));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_leaderFails_shouldFailFollowers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        SingleFlightClient client = new SingleFlightClient((request, options) -> {
+            calls.incrementAndGet();
+            awaitLatch(release);
+            throw new IOException("connection reset");
+        });
+
+        Future<Response> leader = executor.submit(() -> client.execute(buildRequest(Request.HttpMethod.GET), OPTIONS));
+        waitFor(() -> calls.get() == 1);
+        Future<Response> follower = executor.submit(() -> client.execute(buildRequest(Request.HttpMethod.GET), OPTIONS));
+        waitFor(() -> client.getCoalescedRequests() == 1);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertTrue(leaderError.getCause() instanceof IOException);
+        assertTrue(followerError.getCause() instanceof IOException);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_post_shouldNotBeShared() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        SingleFlightClient client = new SingleFlightClient((request, options) -> {
+            calls.incrementAndGet();
+            return buildResponse(request);
+        });
+
+        client.execute(buildRequest(Request.HttpMethod.POST), OPTIONS);
+        client.execute(buildRequest(Request.HttpMethod.POST), OPTIONS);
+
+        assertEquals(2, calls.get());
+    }
+
+    private static Request buildRequest(Request.HttpMethod method) {
+        Map<String, Collection<String>> headers = Collections.singletonMap("Authorization", Collections.singletonList(TOKEN));
+        return Request.create(method, URL, headers, null, StandardCharsets.UTF_8, null);
+    }
+
+    private static Response buildResponse(Request request) {
+        return Response.builder()
+                       .status(200)
+                       .request(request)
+                       .headers(Collections.emptyMap())
+                       .body(new ByteArrayInputStream(BODY), BODY.length)
+                       .build();
+    }
+
+    private static byte[] readBody(Response response) throws IOException {
+        try (InputStream inputStream = response.body().asInputStream()) {
+            return Util.toByteArray(inputStream);
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) throws IOException {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.ledgers.rest.client;
+
+import feign.Contract;
+import feign.MethodMetadata;
+import feign.Param;
+import feign.Request;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds Feign requests and responses of a test client interface, so that the decorating clients see the same
+ * method metadata as with the real Ledgers clients.
+ */
+final class TestRequests {
+    static final String URL = "http://ledgers";
+    static final Request.Options OPTIONS = new Request.Options();
+
+    private static final Map<String, MethodMetadata> METHODS = new HashMap<>();
+
+    static {
+        new Contract.Default().parseAndValidateMetadata(TestClient.class)
+                .forEach(metadata -> METHODS.put(metadata.method().getName(), metadata));
+    }
+
+    private TestRequests() {
+    }
+
+    interface TestClient {
+        @RequestLine("GET /accounts/{accountId}/balances")
+        String getBalances(@Param("accountId") String accountId);
+
+        @RequestLine("GET /payments/{paymentId}/status")
+        String getPaymentStatusById(@Param("paymentId") String paymentId);
+
+        @RequestLine("POST /payments")
+        String initiatePayment(String payment);
+    }
+
+    static String configKey(String methodName) {
+        return METHODS.get(methodName).configKey();
+    }
+
+    static Request request(String methodName) {
+        return request(methodName, Collections.emptyMap());
+    }
+
+    static RequestTemplate template(String methodName) {
+        RequestTemplate template = new RequestTemplate();
+        template.methodMetadata(METHODS.get(methodName));
+        return template;
+    }
+
+    static Request request(String methodName, Map<String, Collection<String>> headers) {
+        MethodMetadata metadata = METHODS.get(methodName);
+        RequestTemplate template = template(methodName);
+        Request.HttpMethod httpMethod = Request.HttpMethod.valueOf(metadata.template().method());
+        return Request.create(httpMethod, URL + metadata.template().url(), headers, null, StandardCharsets.UTF_8, template);
+    }
+
+    static Response response(Request request, int status, byte[] body) {
+        return response(request, status, body, Collections.emptyMap());
+    }
+
+    static Response response(Request request, int status, byte[] body, Map<String, Collection<String>> headers) {
+        return Response.builder()
+                       .status(status)
+                       .request(request)
+                       .headers(headers)
+                       .body(new ByteArrayInputStream(body), body.length)
+                       .build();
+    }
+
+    static byte[] readBody(Response response) throws IOException {
+        try (InputStream inputStream = response.body().asInputStream()) {
+            return Util.toByteArray(inputStream);
+        }
+    }
+
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the list of accounts returned by Ledgers for the PSU of the current request, so that repeated AIS calls of
+ * the same consent (e.g. TPP polling) do not query Ledgers every time. Entries are keyed by the subject of the bearer
+ * token and by the consent it was issued for, if any, so that a refreshed token replaces the entry of its predecessor
+ * and all entries of a PSU can be dropped after a payment.
+ * <p>
+ * The claims are read without verifying the token signature, which is done by Ledgers only. So a cached list is
+ * returned only for a token that Ledgers already accepted for this entry, any other token of the same subject is sent
+ * to Ledgers first.
+ * <p>
+ * Balances are part of the cached account details, within `xs2a.account-list.cache.ttl_s` seconds they may be
+ * outdated by bookings not made through this connector, payments executed through it drop the entries of the PSU.
+ * Entries expire after `xs2a.account-list.cache.ttl_s` seconds, the least recently used ones are dropped once
+ * `xs2a.account-list.cache.max-size` is exceeded.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountListCacheService implements MeterBinder {
+    private static final String METRIC_PREFIX = "xs2a.connector.account-list.cache";
+    private static final String SUBJECT_CLAIM = "sub";
+    private static final String CONSENT_CLAIM = "consent";
+    private static final String CONSENT_ID_FIELD = "id";
+    private static final int MAX_TOKENS_PER_ENTRY = 4;
+
+    private final AccountRestClient accountRestClient;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final ObjectMapper objectMapper;
+
+    @Value("${xs2a.account-list.cache.ttl_s:30}")
+    private long ttlSeconds;
+    @Value("${xs2a.account-list.cache.max-size:1000}")
+    private int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong sizeEvictions = new AtomicLong();
+
+    private final Map<String, CacheEntry> entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            boolean overflow = size() > maxSize;
+            if (overflow) {
+                sizeEvictions.incrementAndGet();
+            }
+            return overflow;
+        }
+    };
+
+    /**
+     * Returns the accounts available for the bearer token currently set in {@link AuthRequestInterceptor},
+     * requesting them from Ledgers only if there is no valid cached list for the PSU and consent of this token or the
+     * token wasn't accepted by Ledgers for this list yet.
+     * The returned list is unmodifiable and its elements are shared between requests, callers must not change them.
+     *
+     * @return list of account details, null if Ledgers returned no body
+     */
+    public List<AccountDetailsTO> getListOfAccounts() {
+        String accessToken = authRequestInterceptor.getAccessToken();
+        TokenClaims claims = getTokenClaims(accessToken);
+        if (claims == null || ttlSeconds <= 0) {
+            return accountRestClient.getListOfAccounts().getBody();
+        }
+
+        String key = claims.getCacheKey();
+        String tokenHash = hash(accessToken);
+        List<AccountDetailsTO> cachedAccounts = getCachedAccounts(key, tokenHash);
+        if (cachedAccounts != null) {
+            hits.incrementAndGet();
+            return cachedAccounts;
+        }
+
+        misses.incrementAndGet();
+        List<AccountDetailsTO> accounts = accountRestClient.getListOfAccounts().getBody();
+        if (accounts != null) {
+            accounts = Collections.unmodifiableList(new ArrayList<>(accounts));
+            synchronized (entries) {
+                CacheEntry previous = entries.get(key);
+                entries.put(key, new CacheEntry(claims.subject, accounts, System.currentTimeMillis() + ttlSeconds * 1000,
+                                                getAcceptedTokens(previous, tokenHash)));
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Drops the cached accounts of the PSU and consent the given bearer token was issued for, used when the consent
+     * behind it is revoked.
+     *
+     * @param accessToken bearer token the accounts were requested with
+     */
+    public void evictByAccessToken(String accessToken) {
+        TokenClaims claims = getTokenClaims(accessToken);
+        if (claims == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.remove(claims.getCacheKey()) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drops all cached account lists of the PSU the given bearer token was issued for, used after payment execution
+     * as account data of the PSU may have changed regardless of the consent it was requested with.
+     *
+     * @param accessToken any bearer token of the PSU
+     */
+    public void evictByTokenSubject(String accessToken) {
+        TokenClaims claims = getTokenClaims(accessToken);
+        if (claims == null) {
+            return;
+        }
+        synchronized (entries) {
+            Iterator<CacheEntry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (claims.subject.equals(iterator.next().subject)) {
+                    iterator.remove();
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", hits, AtomicLong::get)
+                .description("Account list requests served from cache")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", misses, AtomicLong::get)
+                .description("Account list requests forwarded to Ledgers")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".evictions", evictions, AtomicLong::get)
+                .description("Account lists removed from cache on consent revocation or payment execution")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".size-evictions", sizeEvictions, AtomicLong::get)
+                .description("Least recently used account lists dropped as the cache exceeded its maximum size")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".size", this, AccountListCacheService::size)
+                .description("Number of cached account lists")
+                .register(registry);
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private List<AccountDetailsTO> getCachedAccounts(String key, String tokenHash) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.acceptedTokens.contains(tokenHash)
+                           ? entry.accounts
+                           : null;
+        }
+    }
+
+    private Set<String> getAcceptedTokens(CacheEntry previous, String tokenHash) {
+        // tokens of the previous entry are still accepted by Ledgers until they expire, e.g. the one just refreshed
+        LinkedList<String> acceptedTokens = previous != null
+                                                    ? new LinkedList<>(previous.acceptedTokens)
+                                                    : new LinkedList<>();
+        acceptedTokens.remove(tokenHash);
+        acceptedTokens.addFirst(tokenHash);
+        while (acceptedTokens.size() > MAX_TOKENS_PER_ENTRY) {
+            acceptedTokens.removeLast();
+        }
+        return new LinkedHashSet<>(acceptedTokens);
+    }
+
+    private String hash(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private TokenClaims getTokenClaims(String accessToken) {
+        String[] tokenParts = StringUtils.split(accessToken, '.');
+        if (tokenParts == null || tokenParts.length < 2) {
+            return null;
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(tokenParts[1].getBytes(StandardCharsets.UTF_8));
+            JsonNode claims = objectMapper.readTree(payload);
+            JsonNode subject = claims.get(SUBJECT_CLAIM);
+            if (subject == null || subject.isNull()) {
+                return null;
+            }
+            JsonNode consentId = claims.path(CONSENT_CLAIM).get(CONSENT_ID_FIELD);
+            return new TokenClaims(subject.asText(), consentId != null && !consentId.isNull() ? consentId.asText() : null);
+        } catch (Exception e) {
+            log.debug("Can't read claims of bearer token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static class TokenClaims {
+        private final String subject;
+        private final String consentId;
+
+        private TokenClaims(String subject, String consentId) {
+            this.subject = subject;
+            this.consentId = consentId;
+        }
+
+        private String getCacheKey() {
+            return consentId != null ? subject + '|' + consentId : subject;
+        }
+    }
+
+    private static class CacheEntry {
+        private final String subject;
+        private final List<AccountDetailsTO> accounts;
+        private final long expiresAt;
+        // SHA-256 hashes of the tokens Ledgers returned this list for, the tokens themselves are not kept
+        private final Set<String> acceptedTokens;
+
+        private CacheEntry(String subject, List<AccountDetailsTO> accounts, long expiresAt, Set<String> acceptedTokens) {
+            this.subject = subject;
+            this.accounts = accounts;
+            this.expiresAt = expiresAt;
+            this.acceptedTokens = acceptedTokens;
+        }
+    }
+}
@@ -20,30 +20,44 @@ import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountIdentifierTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AdditionalAccountInformationTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAdditionalInformationAccess;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
 import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccessType;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.Currency;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class OwnerNameService {
     private final AccountRestClient accountRestClient;
     private final IbanResolverMockService ibanResolverMockService;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final ExecutorService ledgersAsyncExecutor;
+
+    public OwnerNameService(AccountRestClient accountRestClient, IbanResolverMockService ibanResolverMockService,
+                            AuthRequestInterceptor authRequestInterceptor,
+                            @Qualifier("ledgersAsyncExecutor") ExecutorService ledgersAsyncExecutor) {
+        this.accountRestClient = accountRestClient;
+        this.ibanResolverMockService = ibanResolverMockService;
+        this.authRequestInterceptor = authRequestInterceptor;
+        this.ledgersAsyncExecutor = ledgersAsyncExecutor;
+    }
 
     public boolean shouldContainOwnerName(IbanAccountReference ibanAccountReference, SpiAccountAccess accountAccess) {
         SpiAdditionalInformationAccess spiAdditionalInformationAccess = accountAccess.getSpiAdditionalInformationAccess();
@@ -69,12 +83,58 @@ public class OwnerNameService {
         return cardAccountDetails;
     }
 
+    /**
+     * Resolves account owner names for several accounts at once. Repeated resource IDs are looked up only once,
+     * distinct ones are requested from Ledgers concurrently on the shared Ledgers async executor. Once a lookup
+     * failed, lookups not started yet are skipped, the ones already sent to Ledgers run to completion.
+     *
+     * @param resourceIds resource IDs of the accounts
+     * @return map of resource ID to owner name, the value is null if Ledgers returned no owner for the account
+     */
+    public Map<String, String> getAccountOwnerNames(Collection<String> resourceIds) {
+        Set<String> uniqueResourceIds = new LinkedHashSet<>(resourceIds);
+        Map<String, String> ownerNames = new HashMap<>();
+
+        if (uniqueResourceIds.size() <= 1) {
+            uniqueResourceIds.forEach(id -> ownerNames.put(id, getAccountOwnerNameFromLedgers(id)));
+            return ownerNames;
+        }
+
+        Executor executor = authRequestInterceptor.propagatingExecutor(ledgersAsyncExecutor);
+        AtomicBoolean failed = new AtomicBoolean();
+        Map<String, CompletableFuture<String>> lookups = new LinkedHashMap<>();
+        uniqueResourceIds.forEach(id -> lookups.put(id, CompletableFuture.supplyAsync(() -> getAccountOwnerNameUnlessFailed(id, failed), executor)));
+
+        try {
+            lookups.forEach((id, lookup) -> ownerNames.put(id, lookup.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return ownerNames;
+    }
+
     private boolean containsAccountReferenceWithIban(List<SpiAccountReference> references, @NotNull String iban, Currency currency) {
         return references.stream()
                        .filter(reference -> iban.equals(getIbanFromAccessReference(reference)))
                        .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(currency));
     }
 
+    private String getAccountOwnerNameUnlessFailed(String resourceId, AtomicBoolean failed) {
+        if (failed.get()) {
+            // the result is discarded anyway, the request would only add load to Ledgers
+            return null;
+        }
+        try {
+            return getAccountOwnerNameFromLedgers(resourceId);
+        } catch (RuntimeException e) {
+            failed.set(true);
+            throw e;
+        }
+    }
+
     private String getAccountOwnerNameFromLedgers(String resourceId) {
         ResponseEntity<List<AdditionalAccountInformationTO>> additionalAccountInfo = accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, resourceId);
 
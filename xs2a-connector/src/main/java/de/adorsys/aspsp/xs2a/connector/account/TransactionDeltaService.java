@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds delta transaction reports for `entryReferenceFrom` and `deltaList` requests.
+ * <p>
+ * For every consent and account the latest booking date delivered to the TPP is remembered, together with the
+ * entry references of the transactions delivered for this date. A delta report only needs transactions booked
+ * since this date from Ledgers and returns those not delivered yet, instead of the whole default date window.
+ * Checkpoints are kept for `xs2a.transaction.delta.ttl_s` seconds, the least recently used ones are dropped once
+ * `xs2a.transaction.delta.max-size` is exceeded, in this case the next delta report is a full one.
+ * <p>
+ * Checkpoints are held in memory of the connector instance only. They are lost on restart and not shared between
+ * instances, so the TTL is an upper bound: the effective retention is the time until the next restart, the next
+ * request served by another instance or the LRU drop, whatever comes first. A missing checkpoint is not an error,
+ * `deltaList` then returns the default date window and `entryReferenceFrom` is resolved within this window.
+ * <p>
+ * A delta report contains all pages of its date window at once and is returned without paging links, so the
+ * checkpoint can be moved as soon as the report is served. Only delta reports move the checkpoint.
+ */
+@Service
+public class TransactionDeltaService {
+    @Value("${xs2a.transaction.delta.ttl_s:7776000}")
+    private long ttlSeconds;
+    @Value("${xs2a.transaction.delta.max-size:10000}")
+    private int maxSize;
+
+    private final Map<String, Checkpoint> checkpoints = new LinkedHashMap<String, Checkpoint>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Checkpoint> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    public static boolean isDeltaRequested(String entryReferenceFrom, Boolean deltaList) {
+        return StringUtils.isNotBlank(entryReferenceFrom) || Boolean.TRUE.equals(deltaList);
+    }
+
+    /**
+     * Returns the first booking date transactions of a delta report have to be requested from Ledgers for.
+     *
+     * @param consentId          ID of the consent
+     * @param resourceId         ID of the account
+     * @param entryReferenceFrom entry reference of the last transaction known to the TPP, may be null
+     * @param deltaList          whether all transactions since the last report are requested, may be null
+     * @return booking date of the last delivered transaction, empty if the delta can't be narrowed by date
+     */
+    public Optional<LocalDate> getDateFrom(String consentId, String resourceId, String entryReferenceFrom, Boolean deltaList) {
+        Checkpoint checkpoint = getCheckpoint(consentId, resourceId);
+        if (checkpoint == null) {
+            return Optional.empty();
+        }
+        if (StringUtils.isNotBlank(entryReferenceFrom)) {
+            return checkpoint.references.contains(entryReferenceFrom)
+                           ? Optional.of(checkpoint.bookingDate)
+                           : Optional.empty();
+        }
+        return Boolean.TRUE.equals(deltaList)
+                       ? Optional.of(checkpoint.bookingDate)
+                       : Optional.empty();
+    }
+
+    /**
+     * Filters transactions of a delta report, keeping only the ones booked after the transaction known to the TPP.
+     *
+     * @param consentId          ID of the consent
+     * @param resourceId         ID of the account
+     * @param entryReferenceFrom entry reference of the last transaction known to the TPP, may be null
+     * @param deltaList          whether all transactions since the last report are requested, may be null
+     * @param transactions       transactions returned by Ledgers
+     * @return transactions not known to the TPP yet, all given transactions if the starting point is unknown
+     */
+    public List<TransactionTO> getNewTransactions(String consentId, String resourceId, String entryReferenceFrom, Boolean deltaList,
+                                                  List<TransactionTO> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return transactions;
+        }
+        LocalDate lastBookingDate;
+        Set<String> knownReferences;
+        Checkpoint checkpoint = getCheckpoint(consentId, resourceId);
+
+        if (StringUtils.isNotBlank(entryReferenceFrom)) {
+            if (checkpoint != null && checkpoint.references.contains(entryReferenceFrom)) {
+                lastBookingDate = checkpoint.bookingDate;
+                knownReferences = checkpoint.references;
+            } else {
+                Optional<TransactionTO> referencedTransaction = transactions.stream()
+                                                                        .filter(t -> entryReferenceFrom.equals(getEntryReference(t)))
+                                                                        .findFirst();
+                if (referencedTransaction.isEmpty() || referencedTransaction.get().getBookingDate() == null) {
+                    return transactions;
+                }
+                lastBookingDate = referencedTransaction.get().getBookingDate();
+                knownReferences = Collections.singleton(entryReferenceFrom);
+            }
+        } else if (Boolean.TRUE.equals(deltaList) && checkpoint != null) {
+            lastBookingDate = checkpoint.bookingDate;
+            knownReferences = checkpoint.references;
+        } else {
+            return transactions;
+        }
+
+        return transactions.stream()
+                       .filter(t -> isNew(t, lastBookingDate, knownReferences))
+                       .collect(Collectors.toList());
+    }
+
+    /**
+     * Moves the checkpoint of the account forward to the latest transactions delivered to the TPP.
+     *
+     * @param consentId    ID of the consent
+     * @param resourceId   ID of the account
+     * @param transactions transactions delivered to the TPP
+     */
+    public void remember(String consentId, String resourceId, List<TransactionTO> transactions) {
+        if (ttlSeconds <= 0 || consentId == null || transactions == null) {
+            return;
+        }
+        Optional<LocalDate> latestBookingDate = transactions.stream()
+                                                        .map(TransactionTO::getBookingDate)
+                                                        .filter(Objects::nonNull)
+                                                        .max(Comparator.naturalOrder());
+        if (latestBookingDate.isEmpty()) {
+            return;
+        }
+        Set<String> references = transactions.stream()
+                                         .filter(t -> latestBookingDate.get().equals(t.getBookingDate()))
+                                         .map(this::getEntryReference)
+                                         .filter(Objects::nonNull)
+                                         .collect(Collectors.toSet());
+        long expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        String key = buildKey(consentId, resourceId);
+
+        synchronized (checkpoints) {
+            Checkpoint checkpoint = getCheckpoint(consentId, resourceId);
+            if (checkpoint == null || latestBookingDate.get().isAfter(checkpoint.bookingDate)) {
+                checkpoints.put(key, new Checkpoint(latestBookingDate.get(), references, expiresAt));
+            } else if (latestBookingDate.get().isEqual(checkpoint.bookingDate)) {
+                Set<String> mergedReferences = new HashSet<>(checkpoint.references);
+                mergedReferences.addAll(references);
+                checkpoints.put(key, new Checkpoint(checkpoint.bookingDate, mergedReferences, expiresAt));
+            }
+        }
+    }
+
+    int size() {
+        synchronized (checkpoints) {
+            return checkpoints.size();
+        }
+    }
+
+    private boolean isNew(TransactionTO transaction, LocalDate lastBookingDate, Set<String> knownReferences) {
+        LocalDate bookingDate = transaction.getBookingDate();
+        // transactions without booking date can't be placed, they are rather delivered twice than lost
+        return bookingDate == null
+                       || bookingDate.isAfter(lastBookingDate)
+                       || bookingDate.isEqual(lastBookingDate) && !knownReferences.contains(getEntryReference(transaction));
+    }
+
+    private Checkpoint getCheckpoint(String consentId, String resourceId) {
+        if (consentId == null) {
+            return null;
+        }
+        String key = buildKey(consentId, resourceId);
+        synchronized (checkpoints) {
+            Checkpoint checkpoint = checkpoints.get(key);
+            if (checkpoint != null && checkpoint.expiresAt <= System.currentTimeMillis()) {
+                checkpoints.remove(key);
+                return null;
+            }
+            return checkpoint;
+        }
+    }
+
+    private String getEntryReference(TransactionTO transaction) {
+        return transaction.getEntryReference() != null
+                       ? transaction.getEntryReference()
+                       : transaction.getTransactionId();
+    }
+
+    private String buildKey(String consentId, String resourceId) {
+        return consentId + ":" + resourceId;
+    }
+
+    private static class Checkpoint {
+        private final LocalDate bookingDate;
+        private final Set<String> references;
+        private final long expiresAt;
+
+        private Checkpoint(LocalDate bookingDate, Set<String> references, long expiresAt) {
+            this.bookingDate = bookingDate;
+            this.references = references;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
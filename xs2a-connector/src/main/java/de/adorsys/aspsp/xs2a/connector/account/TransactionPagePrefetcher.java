@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestAsyncClient;
+import de.adorsys.ledgers.util.domain.CustomPageImpl;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the next page of a transaction report ahead, while the TPP is still processing the current one.
+ * <p>
+ * Prefetching starts only for a consent paging sequentially through the transactions of an account, i.e. after
+ * page N was followed by page N + 1. Then page N + 2 is requested in background and kept for
+ * `xs2a.transaction.list.prefetch.ttl_s` seconds. At most one page is kept per consent, account and date window,
+ * the least recently used ones are dropped once `xs2a.transaction.list.prefetch.max-size` is exceeded.
+ * <p>
+ * The memory held by prefetched pages is bounded by their page size: all pages kept or being requested together
+ * contain at most `xs2a.transaction.list.prefetch.max-transactions` transactions, no further page is prefetched
+ * until enough of them have been served or have expired.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionPagePrefetcher implements MeterBinder {
+    private static final String METRIC_PREFIX = "xs2a.connector.transaction-page.prefetch";
+
+    private final AccountRestAsyncClient accountRestAsyncClient;
+
+    @Value("${xs2a.transaction.list.prefetch.enabled:false}")
+    private boolean enabled;
+    @Value("${xs2a.transaction.list.prefetch.ttl_s:30}")
+    private long ttlSeconds;
+    @Value("${xs2a.transaction.list.prefetch.max-size:100}")
+    private int maxSize;
+    @Value("${xs2a.transaction.list.prefetch.max-transactions:5000}")
+    private int maxTransactions;
+
+    private final AtomicLong prefetches = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    // page sizes of all prefetched pages, guarded by pagingStates
+    private int prefetchedTransactions;
+
+    private final Map<String, PagingState> pagingStates = new LinkedHashMap<String, PagingState>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PagingState> eldest) {
+            boolean overflow = size() > maxSize;
+            if (overflow) {
+                dropPrefetch(eldest.getValue());
+            }
+            return overflow;
+        }
+    };
+
+    /**
+     * Takes the prefetched page, waiting for it if the call to Ledgers is still in progress.
+     *
+     * @return the page, null if it was not prefetched, has expired or its call failed
+     */
+    public ResponseEntity<CustomPageImpl<TransactionTO>> getPrefetchedPage(String consentId, String resourceId, LocalDate dateFrom, LocalDate dateTo,
+                                                                           int page, int size) {
+        if (!enabled || consentId == null) {
+            return null;
+        }
+        CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> prefetch;
+        synchronized (pagingStates) {
+            PagingState state = pagingStates.get(buildKey(consentId, resourceId, dateFrom, dateTo, size));
+            if (state == null || state.prefetch == null || state.prefetchedPage != page) {
+                return null;
+            }
+            if (state.expiresAt <= System.currentTimeMillis()) {
+                dropPrefetch(state);
+                return null;
+            }
+            prefetch = state.prefetch;
+            // the page is handed over to the caller, it is not held here any more
+            releasePrefetch(state);
+        }
+
+        try {
+            ResponseEntity<CustomPageImpl<TransactionTO>> response = prefetch.join();
+            hits.incrementAndGet();
+            return response;
+        } catch (CompletionException | CancellationException e) {
+            log.debug("Prefetching transactions page {} of account {} failed: {}", page, resourceId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Records the page served to the TPP and prefetches the next one if the consent pages sequentially.
+     *
+     * @param accessToken bearer token the next page is requested with
+     * @param lastPage    whether the served page is the last one of the report
+     */
+    public void pageServed(String consentId, String resourceId, String accessToken, LocalDate dateFrom, LocalDate dateTo,
+                           int page, int size, boolean lastPage) {
+        if (!enabled || consentId == null || ttlSeconds <= 0) {
+            return;
+        }
+        String key = buildKey(consentId, resourceId, dateFrom, dateTo, size);
+        synchronized (pagingStates) {
+            PagingState state = pagingStates.computeIfAbsent(key, k -> new PagingState());
+            boolean sequential = state.lastServedPage != null && page == state.lastServedPage + 1;
+            state.lastServedPage = page;
+            if (!sequential || lastPage || state.prefetch != null && state.prefetchedPage == page + 1) {
+                return;
+            }
+            dropPrefetch(state);
+            dropExpiredPrefetches();
+            if (prefetchedTransactions + size > maxTransactions) {
+                return;
+            }
+            // reserved before the call is started, so that concurrent prefetches can't exceed the limit
+            prefetchedTransactions += size;
+        }
+
+        // the call is started outside of the lock, the executor may run it in the calling thread if it is saturated
+        CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> prefetch;
+        try {
+            prefetch = accountRestAsyncClient.getTransactionByDatesPaged(accessToken, resourceId, dateFrom, dateTo, page + 1, size);
+        } catch (RuntimeException e) {
+            synchronized (pagingStates) {
+                prefetchedTransactions -= size;
+            }
+            throw e;
+        }
+        prefetches.incrementAndGet();
+
+        synchronized (pagingStates) {
+            PagingState state = pagingStates.computeIfAbsent(key, k -> new PagingState());
+            dropPrefetch(state);
+            state.prefetch = prefetch;
+            state.prefetchedPage = page + 1;
+            state.prefetchSize = size;
+            state.expiresAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".requests", prefetches, AtomicLong::get)
+                .description("Transaction pages requested from Ledgers ahead")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", hits, AtomicLong::get)
+                .description("Transaction pages served from prefetched ones")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".transactions", this, TransactionPagePrefetcher::getPrefetchedTransactions)
+                .description("Transactions of the pages kept or being requested ahead, by page size")
+                .register(registry);
+    }
+
+    int getPrefetchedTransactions() {
+        synchronized (pagingStates) {
+            return prefetchedTransactions;
+        }
+    }
+
+    int size() {
+        synchronized (pagingStates) {
+            return pagingStates.size();
+        }
+    }
+
+    private void dropExpiredPrefetches() {
+        long now = System.currentTimeMillis();
+        pagingStates.values().stream()
+                .filter(state -> state.prefetch != null && state.expiresAt <= now)
+                .forEach(this::dropPrefetch);
+    }
+
+    private void dropPrefetch(PagingState state) {
+        if (state.prefetch != null) {
+            state.prefetch.cancel(false);
+            releasePrefetch(state);
+        }
+    }
+
+    private void releasePrefetch(PagingState state) {
+        state.prefetch = null;
+        prefetchedTransactions -= state.prefetchSize;
+    }
+
+    private String buildKey(String consentId, String resourceId, LocalDate dateFrom, LocalDate dateTo, int size) {
+        return String.join(":", consentId, resourceId, String.valueOf(dateFrom), String.valueOf(dateTo), String.valueOf(size));
+    }
+
+    private static class PagingState {
+        private Integer lastServedPage;
+        private int prefetchedPage;
+        private int prefetchSize;
+        private long expiresAt;
+        private CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> prefetch;
+    }
+}
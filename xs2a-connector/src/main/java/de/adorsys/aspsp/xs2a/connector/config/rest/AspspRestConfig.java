@@ -22,8 +22,12 @@ import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.annotation.RequestScope;
 
+/**
+ * Provides a single thread-safe {@link RestTemplate} for the whole application instead of building a new template
+ * with its own request factory for every incoming request. Connections are kept alive and reused by the JDK HTTP
+ * client behind {@link SimpleClientHttpRequestFactory}, the Ledgers clients use their own pools, see FeignConfig.
+ */
 @Configuration
 public class AspspRestConfig {
     @Value("${http-client.read-timeout.ms:10000}")
@@ -39,7 +43,6 @@ public class AspspRestConfig {
 		this.connectionTimeout = connectionTimeout;
 	}
 
-	@RequestScope
     @Bean(name = "aspspRestTemplate")
     public RestTemplate restTemplate(){
         RestTemplate rest = new RestTemplate(clientHttpRequestFactory());
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.rest;
+
+import de.adorsys.ledgers.rest.client.AccountRestAsyncClient;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous Ledgers clients, sharing one bounded executor. If all threads are busy and the queue is full,
+ * the call is performed by the calling thread, so Ledgers is never called by more threads than configured plus
+ * the request threads themselves.
+ */
+@Configuration
+public class LedgersAsyncClientConfig {
+    private static final String LEDGERS_ASYNC_EXECUTOR = "ledgersAsyncExecutor";
+
+    @Bean(name = LEDGERS_ASYNC_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService ledgersAsyncExecutor(@Value("${xs2a.ledgers.async.pool-size:8}") int poolSize,
+                                                @Value("${xs2a.ledgers.async.queue-capacity:100}") int queueCapacity) {
+        int threads = Math.max(poolSize, 1);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                      new LinkedBlockingQueue<>(Math.max(queueCapacity, 1)),
+                                      new CustomizableThreadFactory("ledgers-async-"),
+                                      new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean
+    public AccountRestAsyncClient accountRestAsyncClient(AccountRestClient accountRestClient, AuthRequestInterceptor authRequestInterceptor,
+                                                         @Qualifier(LEDGERS_ASYNC_EXECUTOR) ExecutorService executor) {
+        return new AccountRestAsyncClient(accountRestClient, authRequestInterceptor, executor);
+    }
+}
@@ -28,7 +28,6 @@ import java.nio.file.Path;
 @SuppressWarnings("PMD.ShortMethodName")
 public class DeleteFileRunnable implements Runnable {
     private final String downloadLink;
-    private final int deleteFileDelay;
 
     @Override
     public void run() {
@@ -39,12 +38,8 @@ public class DeleteFileRunnable implements Runnable {
         File parentDirectory = new File(parentDirectoryPath.toString());
 
         try {
-            log.info("File {} is scheduled to be deleted in {} seconds", filePath, deleteFileDelay);
-            Thread.sleep(deleteFileDelay * 1000L);
             FileUtils.deleteQuietly(file);
             log.info("File deleted. File list in directory {} before deleting: {}", parentDirectoryPath, parentDirectory.list());
-            log.info("Directory {} is scheduled to be deleted in {} seconds", parentDirectoryPath, deleteFileDelay);
-            Thread.sleep(deleteFileDelay * 1000L);
             FileUtils.deleteDirectory(parentDirectory);
             log.info("Directory deleted: {}", parentDirectoryPath);
         } catch (Exception e) {
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.file.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the download file through its FileChannel without loading it into memory.
+ * The file and its temporary directory are deleted once the stream is closed.
+ */
+@Slf4j
+public class DownloadFileInputStream extends FilterInputStream {
+    private final Path filePath;
+    private boolean closed;
+
+    public DownloadFileInputStream(Path filePath) throws IOException {
+        super(Channels.newInputStream(FileChannel.open(filePath, StandardOpenOption.READ)));
+        this.filePath = filePath;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } finally {
+            FileUtils.deleteQuietly(filePath.toFile());
+            Path parentDirectoryPath = filePath.getParent();
+            if (parentDirectoryPath != null) {
+                FileUtils.deleteQuietly(parentDirectoryPath.toFile());
+            }
+            log.info("Download file deleted after reading: {}", filePath);
+        }
+    }
+}
@@ -19,6 +19,8 @@ package de.adorsys.aspsp.xs2a.connector.spi.file.util;
 import de.adorsys.aspsp.xs2a.connector.spi.file.exception.FileManagementException;
 import org.springframework.core.io.Resource;
 
+import java.io.InputStream;
+
 public interface FileManagementService {
     /**
      * Stores the file and returns its identifier for further access
@@ -29,6 +31,29 @@ public interface FileManagementService {
      */
     String saveFileAndBuildDownloadLink(Resource resource, String filename) throws FileManagementException;
 
+    /**
+     * Creates the file, lets contentWriter stream the data into it and returns its identifier for further access
+     * @param contentWriter writes the file content into the stream of the created file
+     * @param filename is a name of file to be saved
+     * @return download link being used for this file retrieving
+     * @throws FileManagementException in case of errors during file creation
+     */
+    String saveFileAndBuildDownloadLink(FileContentWriter contentWriter, String filename) throws FileManagementException;
+
+    /**
+     * Waits until the file is completely written, but not longer than configured for the implementation
+     * @param downloadLink is an identifier of requested file
+     * @return status of the file, PENDING if writing is not finished within the waiting time
+     */
+    DownloadFileStatus awaitFileReady(String downloadLink);
+
+    /**
+     * Returns the current status of the file without waiting for it to be written
+     * @param downloadLink is an identifier of requested file
+     * @return status of the file, EXPIRED if the file is not tracked anymore, e.g. after it was downloaded
+     */
+    DownloadFileStatus getFileStatus(String downloadLink);
+
     /**
      * Returns file by its downloadLink, returned after execution of `saveFileAndBuildDownloadLink(Resource resource, String filename)` method
      * @param downloadLink is an identifier of requested file
@@ -37,6 +62,14 @@ public interface FileManagementService {
      */
     Resource getFileByDownloadLink(String downloadLink) throws FileManagementException;
 
+    /**
+     * Opens file by its downloadLink for reading without loading its content into memory, the file is deleted after the stream is closed
+     * @param downloadLink is an identifier of requested file
+     * @return InputStream of the requested file
+     * @throws FileManagementException in case of error during file opening
+     */
+    InputStream openFileByDownloadLink(String downloadLink) throws FileManagementException;
+
     /**
      * Deletes file by downloadLink
      * @param downloadLink is an identifier of the file to be deleted.
@@ -17,65 +17,267 @@
 package de.adorsys.aspsp.xs2a.connector.spi.file.util;
 
 import de.adorsys.aspsp.xs2a.connector.spi.file.exception.FileManagementException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 @Slf4j
-public class FileManagementServiceSimple implements FileManagementService {
+public class FileManagementServiceSimple implements FileManagementService, MeterBinder {
+    private static final String METRIC_PREFIX = "xs2a.connector.download.files";
+    private static final int GZIP_BUFFER_SIZE_BYTES = 8192;
+    private static final long ORPHANED_FILE_MARGIN_MS = 60_000L;
+
     @Value("${xs2a.download.files.cleanup.delay_s:30}")
     public int deleteFileDelay;
 
     @Value("${xs2a.download.files.dir:/tmp/XS2A}")
     private String configurationPath;
 
+    @Value("${xs2a.download.files.write.threads:4}")
+    private int writeThreads;
+
+    @Value("${xs2a.download.files.write.queue-size:100}")
+    private int writeQueueSize;
+
+    @Value("${xs2a.download.files.ready.timeout_ms:2000}")
+    private long readyTimeoutMs;
+
+    @Value("${xs2a.download.files.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    @Value("${xs2a.download.files.expiry_s:600}")
+    private long fileExpirySeconds;
+
+    private final Map<String, CompletableFuture<DownloadFileStatus>> fileStatuses = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> fileExpirations = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor writeExecutor;
+    private ScheduledThreadPoolExecutor cleanupExecutor;
+
+    @PostConstruct
+    public void startExecutors() {
+        int threads = Math.max(writeThreads, 1);
+        // when the queue is full the file is written by the requesting thread, which slows down the TPP producing the load
+        writeExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(Math.max(writeQueueSize, 1)),
+                                               new CustomizableThreadFactory("download-file-write-"),
+                                               new ThreadPoolExecutor.CallerRunsPolicy());
+        cleanupExecutor = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("download-file-cleanup-"));
+        cleanupExecutor.setRemoveOnCancelPolicy(true);
+        deleteOrphanedFiles();
+    }
+
+    @PreDestroy
+    public void shutdownExecutors() {
+        writeExecutor.shutdown();
+        // not yet deleted files are removed by the orphan sweep on the next start
+        cleanupExecutor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + ".pending.writes", this, FileManagementServiceSimple::getPendingWrites)
+                .description("Download files waiting to be written or being written")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".pending.deletions", this, FileManagementServiceSimple::getPendingDeletions)
+                .description("Download files scheduled for deletion")
+                .register(registry);
+    }
+
+    int getPendingWrites() {
+        return writeExecutor.getQueue().size() + writeExecutor.getActiveCount();
+    }
+
+    int getPendingDeletions() {
+        return cleanupExecutor.getQueue().size();
+    }
+
     @Override
     public String saveFileAndBuildDownloadLink(Resource resource, String filename) throws FileManagementException {
+        return saveFileAndBuildDownloadLink(outputStream -> {
+            try (InputStream inputStream = resource.getInputStream()) {
+                long bytesCount = inputStream.transferTo(outputStream);
+                log.info("Bytes read: [{}]", bytesCount);
+            }
+        }, filename);
+    }
 
+    @Override
+    public String saveFileAndBuildDownloadLink(FileContentWriter contentWriter, String filename) throws FileManagementException {
         try {
-            byte[] bytes = resource.getInputStream().readAllBytes();
             Path dirPath = Path.of(configurationPath);
             Files.createDirectories(dirPath);
             Path dir = Files.createTempDirectory(dirPath, StringUtils.EMPTY);
-            Path fileToCreatePath = dir.resolve(filename);
-            Path newFilePath = Files.createFile(fileToCreatePath);
-            File file = newFilePath.toFile();
+            Path filePath = dir.resolve(compressionEnabled ? filename + GzipFileSystemResource.GZIP_SUFFIX : filename).toAbsolutePath();
+            String downloadLink = filePath.toString();
+            FileContentWriter fileContentWriter = compressionEnabled ? compressed(contentWriter) : contentWriter;
 
-            WriteFileRunnable writeFileRunnable = new WriteFileRunnable(file, bytes);
-            Thread asyncFileWrite = new Thread(writeFileRunnable);
-            asyncFileWrite.start();
+            CompletableFuture<DownloadFileStatus> fileStatus = new CompletableFuture<>();
+            fileStatuses.put(downloadLink, fileStatus);
+            // files that are never downloaded would otherwise stay on disk until the next start
+            fileExpirations.put(downloadLink, cleanupExecutor.schedule(() -> expireFile(downloadLink, fileStatus), fileExpirySeconds, TimeUnit.SECONDS));
+            writeExecutor.execute(new WriteFileRunnable(filePath, fileContentWriter, fileStatus));
 
-            log.info("Bytes read: [{}]", bytes.length);
-            return file.getAbsolutePath();
+            return downloadLink;
         } catch (IOException e) {
             log.error("Save file and build Download Link failed (IOException): message {}, exception {}", e.getMessage(), e);
             throw new FileManagementException(e.getMessage());
         }
     }
 
+    @Override
+    public DownloadFileStatus awaitFileReady(String downloadLink) {
+        CompletableFuture<DownloadFileStatus> fileStatus = fileStatuses.get(downloadLink);
+        if (fileStatus == null) {
+            // files written before the restart of the service are not tracked
+            return Files.exists(Path.of(downloadLink)) ? DownloadFileStatus.READY : DownloadFileStatus.EXPIRED;
+        }
+        try {
+            return fileStatus.get(readyTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return DownloadFileStatus.PENDING;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DownloadFileStatus.PENDING;
+        } catch (ExecutionException e) {
+            return DownloadFileStatus.FAILED;
+        }
+    }
+
+    @Override
+    public DownloadFileStatus getFileStatus(String downloadLink) {
+        CompletableFuture<DownloadFileStatus> fileStatus = fileStatuses.get(downloadLink);
+        if (fileStatus == null) {
+            return DownloadFileStatus.EXPIRED;
+        }
+        return fileStatus.isCompletedExceptionally()
+                       ? DownloadFileStatus.FAILED
+                       : fileStatus.getNow(DownloadFileStatus.PENDING);
+    }
+
     @Override
     public Resource getFileByDownloadLink(String downloadLink) throws FileManagementException {
         Path path = Path.of(downloadLink);
         if (path.toFile().exists()) {
-            return new FileSystemResource(path);
+            return GzipFileSystemResource.isCompressed(path)
+                           ? new GzipFileSystemResource(path)
+                           : new FileSystemResource(path);
         }
         log.error("File does not exist: [{}]", downloadLink);
         throw new FileManagementException("Requested file does not exist");
     }
 
+    @Override
+    public InputStream openFileByDownloadLink(String downloadLink) throws FileManagementException {
+        Path path = Path.of(downloadLink);
+        try {
+            InputStream inputStream = new DownloadFileInputStream(path);
+            fileStatuses.remove(downloadLink);
+            cancelExpiration(downloadLink);
+            return GzipFileSystemResource.isCompressed(path)
+                           ? decompressed(inputStream)
+                           : inputStream;
+        } catch (IOException e) {
+            log.error("Open file by Download Link failed (IOException): [{}], message {}", downloadLink, e.getMessage());
+            throw new FileManagementException("Requested file does not exist");
+        }
+    }
+
     @Override
     public void deleteFileByDownloadLink(String downloadLink) {
-        DeleteFileRunnable deleteFileRunnable = new DeleteFileRunnable(downloadLink, deleteFileDelay);
-        Thread asyncFileDelete = new Thread(deleteFileRunnable);
-        asyncFileDelete.start();
+        log.info("File {} is scheduled to be deleted in {} seconds", downloadLink, deleteFileDelay);
+        cancelExpiration(downloadLink);
+        cleanupExecutor.schedule(() -> {
+            fileStatuses.remove(downloadLink);
+            new DeleteFileRunnable(downloadLink).run();
+        }, deleteFileDelay, TimeUnit.SECONDS);
+    }
+
+    private void expireFile(String downloadLink, CompletableFuture<DownloadFileStatus> fileStatus) {
+        fileExpirations.remove(downloadLink);
+        if (!fileStatuses.remove(downloadLink, fileStatus)) {
+            return;
+        }
+        fileStatus.complete(DownloadFileStatus.EXPIRED);
+        log.info("File {} was not downloaded within {} seconds and is deleted", downloadLink, fileExpirySeconds);
+        new DeleteFileRunnable(downloadLink).run();
+    }
+
+    private void cancelExpiration(String downloadLink) {
+        ScheduledFuture<?> expiration = fileExpirations.remove(downloadLink);
+        if (expiration != null) {
+            expiration.cancel(false);
+        }
+    }
+
+    private FileContentWriter compressed(FileContentWriter contentWriter) {
+        return outputStream -> {
+            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE_BYTES);
+            contentWriter.write(gzipOutputStream);
+            gzipOutputStream.finish();
+        };
+    }
+
+    private InputStream decompressed(InputStream inputStream) throws IOException {
+        try {
+            return new GZIPInputStream(inputStream, GZIP_BUFFER_SIZE_BYTES);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    private void deleteOrphanedFiles() {
+        Path dirPath = Path.of(configurationPath);
+        if (!Files.isDirectory(dirPath)) {
+            return;
+        }
+        // files are deleted after the expiry if not downloaded and after the cleanup delay if downloaded, anything
+        // not modified for longer was left by a previous run and not by another instance sharing the directory
+        long orphanedBefore = System.currentTimeMillis() - Math.max(fileExpirySeconds, deleteFileDelay) * 1000L - ORPHANED_FILE_MARGIN_MS;
+        try (Stream<Path> downloadDirectories = Files.list(dirPath)) {
+            downloadDirectories.map(Path::toFile)
+                    .filter(file -> getLastModified(file) < orphanedBefore)
+                    .forEach(file -> {
+                        log.info("Deleting orphaned download file: {}", file.getAbsolutePath());
+                        FileUtils.deleteQuietly(file);
+                    });
+        } catch (IOException e) {
+            log.error("Unable to delete orphaned download files in {}: {}", configurationPath, e.getMessage());
+        }
+    }
+
+    private long getLastModified(File downloadDirectory) {
+        // files still being written (.part) are modified continuously, so their directory is never orphaned
+        long lastModified = downloadDirectory.lastModified();
+        File[] files = downloadDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                lastModified = Math.max(lastModified, file.lastModified());
+            }
+        }
+        return lastModified;
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.file.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * File resource stored gzip compressed, exposing the uncompressed content and the original file name.
+ */
+public class GzipFileSystemResource extends FileSystemResource {
+    static final String GZIP_SUFFIX = ".gz";
+    private static final int GZIP_TRAILER_SIZE_BYTES = 4;
+
+    public GzipFileSystemResource(Path filePath) {
+        super(filePath);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(super.getInputStream());
+    }
+
+    /**
+     * Returns the uncompressed size taken from the gzip trailer, so the file does not have to be decompressed.
+     */
+    @Override
+    public long contentLength() throws IOException {
+        try (FileChannel channel = FileChannel.open(getFile().toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < GZIP_TRAILER_SIZE_BYTES) {
+                return 0;
+            }
+            ByteBuffer uncompressedSize = ByteBuffer.allocate(GZIP_TRAILER_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(uncompressedSize, channel.size() - GZIP_TRAILER_SIZE_BYTES);
+            return Integer.toUnsignedLong(uncompressedSize.getInt(0));
+        }
+    }
+
+    @Override
+    public String getFilename() {
+        return StringUtils.removeEnd(super.getFilename(), GZIP_SUFFIX);
+    }
+
+    static boolean isCompressed(Path filePath) {
+        return filePath.toString().endsWith(GZIP_SUFFIX);
+    }
+}
@@ -20,25 +20,39 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 
-import java.io.File;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @AllArgsConstructor
 @SuppressWarnings("PMD.ShortMethodName")
 public class WriteFileRunnable implements Runnable {
-    private final File file;
-    private final byte[] bytes;
+    private static final String TEMP_FILE_SUFFIX = ".part";
+
+    private final Path filePath;
+    private final FileContentWriter contentWriter;
+    private final CompletableFuture<DownloadFileStatus> fileStatus;
 
     @Override
     public void run() {
-        file.setReadable(false);
+        // readers see the file under its final name only after it is completely written
+        Path tempFilePath = filePath.resolveSibling(filePath.getFileName() + TEMP_FILE_SUFFIX);
         try {
-            FileUtils.writeByteArrayToFile(file, bytes);
-        } catch (IOException e) {
-            log.error("Unable to write data into the file: {}", file.getAbsolutePath());
-        } finally {
-            file.setReadable(true);
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFilePath))) {
+                contentWriter.write(outputStream);
+            }
+            Files.move(tempFilePath, filePath, StandardCopyOption.ATOMIC_MOVE);
+            fileStatus.complete(DownloadFileStatus.READY);
+        } catch (IOException | RuntimeException e) {
+            // a failing writer must complete the status as well, otherwise readers wait for the file until it expires
+            log.error("Unable to write data into the file: {}, message: {}", filePath, e.getMessage());
+            FileUtils.deleteQuietly(tempFilePath.toFile());
+            fileStatus.complete(DownloadFileStatus.FAILED);
         }
     }
 }
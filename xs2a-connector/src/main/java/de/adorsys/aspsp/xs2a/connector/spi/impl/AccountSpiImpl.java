@@ -16,16 +16,25 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionDeltaService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionPagePrefetcher;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.file.exception.FileManagementException;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.DownloadFileStatus;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileContentWriter;
 import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileManagementService;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.service.TransactionCursor;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.service.TransactionExportService;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.service.TransactionLinksService;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
 import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
-import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
+import de.adorsys.ledgers.rest.client.AccountRestAsyncClient;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.util.domain.CustomPageImpl;
@@ -53,21 +62,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Component
@@ -80,6 +90,7 @@ public class AccountSpiImpl implements AccountSpi {
     private static final Integer DEFAULT_TOTAL_PAGES = 1;
 
     private final AccountRestClient accountRestClient;
+    private final AccountRestAsyncClient accountRestAsyncClient;
     private final LedgersSpiAccountMapper accountMapper;
     private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService consentDataService;
@@ -89,7 +100,10 @@ public class AccountSpiImpl implements AccountSpi {
     private final TransactionLinksService transactionLinksService;
     private final FileManagementService fileManagementService;
     private final Xs2aObjectMapper xs2aObjectMapper;
-
+    private final AccountListCacheService accountListCacheService;
+    private final TransactionDeltaService transactionDeltaService;
+    private final TransactionPagePrefetcher transactionPagePrefetcher;
+    private final TransactionExportService transactionExportService;
 
     @Value("${xs2a.transaction.list.defaultPage}")
     private int defaultPage;
@@ -102,8 +116,12 @@ public class AccountSpiImpl implements AccountSpi {
                           AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService consentDataService,
                           FeignExceptionReader feignExceptionReader, IbanResolverMockService ibanResolverMockService,
                           OwnerNameService ownerNameService, TransactionLinksService transactionLinksService,
-                          FileManagementService fileManagementService, Xs2aObjectMapper xs2aObjectMapper) {
+                          FileManagementService fileManagementService, Xs2aObjectMapper xs2aObjectMapper,
+                          AccountListCacheService accountListCacheService, AccountRestAsyncClient accountRestAsyncClient,
+                          TransactionDeltaService transactionDeltaService, TransactionPagePrefetcher transactionPagePrefetcher,
+                          TransactionExportService transactionExportService) {
         this.accountRestClient = restClient;
+        this.accountRestAsyncClient = accountRestAsyncClient;
         this.accountMapper = accountMapper;
         this.authRequestInterceptor = authRequestInterceptor;
         this.consentDataService = consentDataService;
@@ -113,6 +131,10 @@ public class AccountSpiImpl implements AccountSpi {
         this.transactionLinksService = transactionLinksService;
         this.fileManagementService = fileManagementService;
         this.xs2aObjectMapper = xs2aObjectMapper;
+        this.accountListCacheService = accountListCacheService;
+        this.transactionDeltaService = transactionDeltaService;
+        this.transactionPagePrefetcher = transactionPagePrefetcher;
+        this.transactionExportService = transactionExportService;
     }
 
     @Override
@@ -120,20 +142,18 @@ public class AccountSpiImpl implements AccountSpi {
                                                                    boolean withBalance,
                                                                    @NotNull SpiAccountConsent accountConsent,
                                                                    @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
 
         try {
-            GlobalScaResponseTO response = applyAuthorisation(aspspConsentData);
+            applyAuthorisation(consentData);
 
             logger.info("Requested account list for consent with ID: {} and withBalance: {}", accountConsent.getId(),
                         withBalance);
             List<SpiAccountDetails> accountDetailsList = getSpiAccountDetails(withBalance, accountConsent);
 
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(response));
+            consentData.flush();
 
-            List<SpiAccountDetails> accountDetailsListWithOwnerName = accountDetailsList.stream()
-                                                                              .map(accountDetail -> enrichWithOwnerName(accountDetail, accountConsent.getAccess()))
-                                                                              .collect(Collectors.toList());
+            List<SpiAccountDetails> accountDetailsListWithOwnerName = enrichWithOwnerName(accountDetailsList, accountConsent.getAccess());
 
             List<SpiAccountDetails> payload = filterAccountDetailsByWithBalance(withBalance, accountDetailsListWithOwnerName, accountConsent.getAccess());
 
@@ -177,10 +197,10 @@ public class AccountSpiImpl implements AccountSpi {
                                                                          @NotNull SpiAccountReference accountReference,
                                                                          @NotNull SpiAccountConsent accountConsent,
                                                                          @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
 
         try {
-            GlobalScaResponseTO response = applyAuthorisation(aspspConsentData);
+            applyAuthorisation(consentData);
 
             logger.info("Requested details for account, ACCOUNT-ID: {}, withBalance: {}",
                         accountReference.getResourceId(), withBalance);
@@ -195,7 +215,7 @@ public class AccountSpiImpl implements AccountSpi {
             }
             logger.info("The responded account RESOURCE-ID: {}", accountDetailsWithOwnerName.getResourceId());
 
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(response));
+            consentData.flush();
 
             return SpiResponse.<SpiAccountDetails>builder()
                            .payload(accountDetailsWithOwnerName)
@@ -229,7 +249,7 @@ public class AccountSpiImpl implements AccountSpi {
         }
 
 
-        byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
         // TODO https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1106
         // For dates there are alternative test values in case of receiving NULLs, ledgers must receive dates for retrieving transactions request
         // Will be deleted when Ledgers provides supporting getting transactions list without dates.
@@ -241,44 +261,102 @@ public class AccountSpiImpl implements AccountSpi {
         String acceptMediaType = spiTransactionReportParameters.getAcceptMediaType();
         String entryReferenceFrom = spiTransactionReportParameters.getEntryReferenceFrom();
         Boolean deltaList = spiTransactionReportParameters.getDeltaList();
+        boolean deltaReport = TransactionDeltaService.isDeltaRequested(entryReferenceFrom, deltaList);
+        if (deltaReport) {
+            // delta reports are an alternative to the date window, only transactions since the last delivered one are needed
+            dateFrom = transactionDeltaService.getDateFrom(accountConsent.getId(), accountReference.getResourceId(), entryReferenceFrom, deltaList)
+                               .orElse(dateFrom);
+        }
+        Optional<TransactionCursor> cursor = transactionLinksService.getCursor(accountReference.getResourceId());
+        if (cursor.isEmpty() && transactionLinksService.isCursorRequested()) {
+            // a cursor that was changed or issued for another account must not widen the report
+            logger.error("Invalid transaction cursor for account: {}", accountReference.getResourceId());
+            return SpiResponse.<SpiTransactionReport>builder()
+                           .error(new SpiTppMessage(SpiMessageErrorCode.FORMAT_ERROR, "Invalid cursor"))
+                           .build();
+        }
+        if (cursor.isPresent()) {
+            // pages requested by cursor links keep the date window of the first page
+            dateFrom = cursor.get().getDateFrom();
+            dateTo = cursor.get().getDateTo();
+        }
 
+        CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesCall = null;
         try {
-            GlobalScaResponseTO response = applyAuthorisation(aspspConsentData);
+            String accessToken = applyAuthorisation(consentData);
 
             logger.info("Requested transactions for account: {}, dates from: {}, to: {}, withBalance: {}, entryReferenceFrom: {}, deltaList: {}",
                         accountReference.getResourceId(), dateFrom, dateTo, withBalance, entryReferenceFrom, deltaList);
 
-            int page = Optional.ofNullable(spiTransactionReportParameters.getPageIndex()).orElse(defaultPage);
-            int size = Optional.ofNullable(spiTransactionReportParameters.getItemsPerPage()).orElse(defaultSize);
+            int page = cursor.map(TransactionCursor::getPage)
+                               .orElse(Optional.ofNullable(spiTransactionReportParameters.getPageIndex()).orElse(defaultPage));
+            int size = cursor.map(TransactionCursor::getSize)
+                               .orElse(Optional.ofNullable(spiTransactionReportParameters.getItemsPerPage()).orElse(defaultSize));
+
+            // balances don't depend on transactions, they are requested concurrently
+            if (withBalance) {
+                balancesCall = accountRestAsyncClient.getBalances(accessToken, accountReference.getResourceId());
+            }
 
-            CustomPageImpl<TransactionTO> transactionsOnPage = Optional.ofNullable(
-                    accountRestClient.getTransactionByDatesPaged(accountReference.getResourceId(), dateFrom, dateTo, page, size)
-                            .getBody()).orElse(null);
-            List<SpiTransaction> transactionsPaged = Optional.ofNullable(transactionsOnPage)
-                                                             .map(CustomPageImpl::getContent)
+            CustomPageImpl<TransactionTO> transactionsOnPage = null;
+            List<TransactionTO> transactions;
+            if (deltaReport) {
+                // delta reports are filtered after fetching, a single page could hide transactions of the following ones
+                transactions = transactionDeltaService.getNewTransactions(accountConsent.getId(), accountReference.getResourceId(), entryReferenceFrom, deltaList,
+                                                                          getAllTransactions(accountReference.getResourceId(), dateFrom, dateTo, size));
+            } else {
+                transactionsOnPage = Optional.ofNullable(
+                        getTransactionsPage(accountConsent, accountReference.getResourceId(), dateFrom, dateTo, page, size)
+                                .getBody()).orElse(null);
+                transactions = Optional.ofNullable(transactionsOnPage)
+                                       .map(CustomPageImpl::getContent)
+                                       .orElse(null);
+                if (cursor.isPresent()) {
+                    transactions = cursor.get().skipDelivered(transactions);
+                }
+            }
+            List<SpiTransaction> transactionsPaged = Optional.ofNullable(transactions)
                                                              .map(accountMapper::toSpiTransactions)
                                                              .orElseGet(ArrayList::new);
 
-            List<SpiAccountBalance> balances = getSpiAccountBalances(contextData, withBalance, accountReference,
-                                                                     accountConsent, aspspConsentDataProvider);
+            List<SpiAccountBalance> balances = getSpiAccountBalances(balancesCall, accountReference, accountConsent);
             if (SpiBookingStatus.ALL == spiTransactionReportParameters.getBookingStatus() && page == 0) {
                 logger.info("Retrieving mock standing order report for account: {}", accountReference.getResourceId());
                 transactionsPaged.addAll(createStandingOrderReportMock());
             }
-            SpiTransactionLinks spiTransactionLinks = transactionLinksService.buildSpiTransactionLinks(page, size, transactionsOnPage);
+            // delta reports contain all new transactions at once, there are no further pages to link to
+            SpiTransactionLinks spiTransactionLinks = null;
+            if (!deltaReport) {
+                spiTransactionLinks = transactionLinksService.isCursorEnabled()
+                                              ? transactionLinksService.buildSpiTransactionLinks(cursor.orElse(new TransactionCursor(accountReference.getResourceId(), dateFrom, dateTo, page, size)),
+                                                                                                 transactionsOnPage)
+                                              : transactionLinksService.buildSpiTransactionLinks(page, size, transactionsOnPage);
+            }
 
-            String downloadLink = getDownloadLink(transactionsPaged);
+            // the download file of the first page of a long window requested as a file contains all of its transactions
+            String responseMediaType = processAcceptMediaType(acceptMediaType);
+            boolean exportRequested = !deltaReport && cursor.isEmpty() && page == 0 && !DEFAULT_ACCEPT_MEDIA_TYPE.equals(responseMediaType);
+            String downloadLink = exportRequested && transactionExportService.isShardedExport(dateFrom, dateTo)
+                                          ? transactionExportService.getExportDownloadLink(accountConsent.getId(), accessToken, accountReference.getResourceId(),
+                                                                                           dateFrom, dateTo, this::getDownloadLink)
+                                          : getDownloadLink(outputStream -> writeTransactions(outputStream, transactionsPaged));
 
             SpiTransactionReport transactionReport = new SpiTransactionReport(downloadLink,
                                                                               transactionsPaged,
                                                                               balances,
-                                                                              processAcceptMediaType(acceptMediaType),
+                                                                              responseMediaType,
                                                                               null,
                                                                               spiTransactionLinks,
                                                                               DEFAULT_TOTAL_PAGES);
             logger.info("Finally found {} transactions.", transactionReport.getTransactions().size());
 
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(response));
+            consentData.flush();
+            if (deltaReport) {
+                transactionDeltaService.remember(accountConsent.getId(), accountReference.getResourceId(), transactions);
+            } else {
+                transactionPagePrefetcher.pageServed(accountConsent.getId(), accountReference.getResourceId(), accessToken, dateFrom, dateTo,
+                                                     page, size, transactionsOnPage == null || transactionsOnPage.isLastPage());
+            }
 
             return SpiResponse.<SpiTransactionReport>builder()
                            .payload(transactionReport)
@@ -290,21 +368,55 @@ public class AccountSpiImpl implements AccountSpi {
                            .error(buildTppMessage(feignException))
                            .build();
         } finally {
+            if (balancesCall != null) {
+                balancesCall.cancel(false);
+            }
             authRequestInterceptor.setAccessToken(null);
         }
     }
 
-    private String getDownloadLink(List<SpiTransaction> transactions) {
+    private ResponseEntity<CustomPageImpl<TransactionTO>> getTransactionsPage(SpiAccountConsent accountConsent, String resourceId,
+                                                                              LocalDate dateFrom, LocalDate dateTo, int page, int size) {
+        ResponseEntity<CustomPageImpl<TransactionTO>> prefetchedPage = transactionPagePrefetcher.getPrefetchedPage(accountConsent.getId(), resourceId,
+                                                                                                                   dateFrom, dateTo, page, size);
+        return prefetchedPage != null
+                       ? prefetchedPage
+                       : accountRestClient.getTransactionByDatesPaged(resourceId, dateFrom, dateTo, page, size);
+    }
+
+    private List<TransactionTO> getAllTransactions(String resourceId, LocalDate dateFrom, LocalDate dateTo, int size) {
+        List<TransactionTO> transactions = new ArrayList<>();
+        for (int page = 0; ; page++) {
+            CustomPageImpl<TransactionTO> transactionsOnPage = accountRestClient.getTransactionByDatesPaged(resourceId, dateFrom, dateTo, page, size).getBody();
+            if (transactionsOnPage == null || transactionsOnPage.getContent() == null || transactionsOnPage.getContent().isEmpty()) {
+                return transactions;
+            }
+            transactions.addAll(transactionsOnPage.getContent());
+            if (transactionsOnPage.isLastPage()) {
+                return transactions;
+            }
+        }
+    }
+
+    private String getDownloadLink(FileContentWriter contentWriter) {
         try {
-            byte[] bytes = xs2aObjectMapper.writeValueAsBytes(transactions);
-            Resource resource = new ByteArrayResource(bytes);
-            return fileManagementService.saveFileAndBuildDownloadLink(resource, transactionsFilename);
+            return fileManagementService.saveFileAndBuildDownloadLink(contentWriter, transactionsFilename);
         } catch (IOException ex) {
             logger.error("Unable to save transactions file, Exception: {}, Message: {}", ex.getClass(), ex.getMessage());
             return StringUtils.EMPTY;
         }
     }
 
+    private void writeTransactions(OutputStream outputStream, List<SpiTransaction> transactions) throws IOException {
+        try (JsonGenerator generator = xs2aObjectMapper.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            for (SpiTransaction transaction : transactions) {
+                generator.writeObject(transaction);
+            }
+            generator.writeEndArray();
+        }
+    }
+
     String processAcceptMediaType(String acceptMediaType) {
         return StringUtils.isBlank(acceptMediaType)
                        || WILDCARD_ACCEPT_HEADER.equals(acceptMediaType)
@@ -317,10 +429,10 @@ public class AccountSpiImpl implements AccountSpi {
                                                                                    @NotNull SpiAccountReference accountReference,
                                                                                    @NotNull SpiAccountConsent accountConsent,
                                                                                    @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
 
         try {
-            GlobalScaResponseTO response = applyAuthorisation(aspspConsentData);
+            applyAuthorisation(consentData);
 
             logger.info("Requested transaction with TRANSACTION-ID: {} for ACCOUNT-ID: {}", transactionId,
                         accountReference.getResourceId());
@@ -331,7 +443,7 @@ public class AccountSpiImpl implements AccountSpi {
                                                  .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
             logger.info("Found transaction with TRANSACTION-ID: {}", transaction.getTransactionId());
 
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(response));
+            consentData.flush();
 
             return SpiResponse.<SpiTransaction>builder()
                            .payload(transaction)
@@ -352,10 +464,10 @@ public class AccountSpiImpl implements AccountSpi {
                                                                           @NotNull SpiAccountReference accountReference,
                                                                           @NotNull SpiAccountConsent accountConsent,
                                                                           @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        byte[] aspspConsentData = aspspConsentDataProvider.loadAspspConsentData();
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
 
         try {
-            GlobalScaResponseTO response = applyAuthorisation(aspspConsentData);
+            applyAuthorisation(consentData);
 
             logger.info("Requested Balances for ACCOUNT-ID: {}", accountReference.getResourceId());
             List<SpiAccountBalance> accountBalances = Optional
@@ -364,7 +476,7 @@ public class AccountSpiImpl implements AccountSpi {
                                                               .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
             logger.info("Found Balances: {}", accountBalances.size());
 
-            aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(response));
+            consentData.flush();
 
             return SpiResponse.<List<SpiAccountBalance>>builder()
                            .payload(accountBalances)
@@ -388,26 +500,33 @@ public class AccountSpiImpl implements AccountSpi {
 
         logger.info("Requested downloading list of transactions by download ID: {}", downloadId);
         try {
-            Resource resource = fileManagementService.getFileByDownloadLink(downloadId);
-            if (!resource.isReadable()) {
-                logger.info("Reading transactions file is failed, file is not readable yet: consent ID: [{}], filename: [{}]", spiAccountConsent.getId(), resource.getFilename());
+            DownloadFileStatus fileStatus = fileManagementService.awaitFileReady(downloadId);
+            if (fileStatus == DownloadFileStatus.PENDING) {
+                logger.info("Reading transactions file is failed, file is not written yet: consent ID: [{}], download ID: [{}]", spiAccountConsent.getId(), downloadId);
                 return getErrorResponse("File is not ready, try again later", SpiMessageErrorCode.RESOURCE_BLOCKED);
             }
+            if (fileStatus != DownloadFileStatus.READY) {
+                logger.error("Reading transactions file is failed, file status is {}: consent ID: [{}], download ID: [{}]", fileStatus, spiAccountConsent.getId(), downloadId);
+                return getErrorResponse("Requested file does not exist", SpiMessageErrorCode.RESOURCE_UNKNOWN_404);
+            }
 
-            byte[] bytes = readResourceInputStreamBytes(resource);
-            int byteLength = bytes.length;
+            Resource resource = fileManagementService.getFileByDownloadLink(downloadId);
+
+            int byteLength = getResourceContentLength(resource);
 
             if (byteLength == 0) {
                 logger.error("Reading transactions input stream failed, file is empty: consent ID {}, filename {}", spiAccountConsent.getId(), resource.getFilename());
                 return getErrorResponse("Nothing to download, file is empty", SpiMessageErrorCode.RESOURCE_UNKNOWN_404);
             }
 
-            logger.info("Consent ID {}, Decrypted Download id: [{}], Bytes read: [{}]", spiAccountConsent.getId(), downloadId, byteLength);
+            logger.info("Consent ID {}, Decrypted Download id: [{}], Bytes to read: [{}]", spiAccountConsent.getId(), downloadId, byteLength);
 
+            // the file is deleted by the stream as soon as XS2A has finished reading it,
+            // the scheduled deletion removes it in case the stream is never closed
             SpiTransactionsDownloadResponse transactionsDownloadResponse =
-                    new SpiTransactionsDownloadResponse(new ByteArrayInputStream(bytes), resource.getFilename(), byteLength);
-
+                    new SpiTransactionsDownloadResponse(fileManagementService.openFileByDownloadLink(downloadId), resource.getFilename(), byteLength);
             fileManagementService.deleteFileByDownloadLink(downloadId);
+
             return SpiResponse.<SpiTransactionsDownloadResponse>builder()
                            .payload(transactionsDownloadResponse)
                            .build();
@@ -417,11 +536,11 @@ public class AccountSpiImpl implements AccountSpi {
         }
     }
 
-    private byte[] readResourceInputStreamBytes(Resource resource) throws FileManagementException {
-        try (InputStream inputStream = resource.getInputStream()) {
-            return inputStream.readAllBytes();
-        } catch (IOException ex) {
-            logger.error("Unable to read resource input stream bytes, Message: {}", ex.getMessage());
+    private int getResourceContentLength(Resource resource) throws FileManagementException {
+        try {
+            return Math.toIntExact(resource.contentLength());
+        } catch (IOException | ArithmeticException ex) {
+            logger.error("Unable to read resource content length, Message: {}", ex.getMessage());
             throw new FileManagementException("File not found or corrupted(IOException). Message:" + ex.getMessage());
         }
     }
@@ -445,22 +564,32 @@ public class AccountSpiImpl implements AccountSpi {
         return accountDetailsList;
     }
 
-    private List<SpiAccountBalance> getSpiAccountBalances(@NotNull SpiContextData contextData,
-                                                          boolean withBalance,
+    private List<SpiAccountBalance> getSpiAccountBalances(@Nullable CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesCall,
                                                           @NotNull SpiAccountReference accountReference,
-                                                          @NotNull SpiAccountConsent accountConsent,
-                                                          @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        if (withBalance) {
-            SpiResponse<List<SpiAccountBalance>> response = requestBalancesForAccount(contextData, accountReference,
-                                                                                      accountConsent, aspspConsentDataProvider);
-            if (response.isSuccessful()) {
-                return response.getPayload();
-            } else {
-                throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
-            }
-        } else {
+                                                          @NotNull SpiAccountConsent accountConsent) {
+        if (balancesCall == null) {
             return null;
         }
+        try {
+            List<SpiAccountBalance> accountBalances = Optional.ofNullable(balancesCall.join().getBody())
+                                                              .map(accountMapper::toSpiAccountBalancesList)
+                                                              .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+            logger.info("Found Balances: {}", accountBalances.size());
+            return accountBalances;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FeignException) {
+                throw balancesNotFound((FeignException) e.getCause(), accountReference, accountConsent);
+            }
+            throw e;
+        } catch (FeignException feignException) {
+            throw balancesNotFound(feignException, accountReference, accountConsent);
+        }
+    }
+
+    private FeignException balancesNotFound(FeignException feignException, SpiAccountReference accountReference, SpiAccountConsent accountConsent) {
+        String devMessage = feignExceptionReader.getErrorMessage(feignException);
+        logger.error("Request balances for account failed: consent ID {}, resource ID {}, devMessage {}", accountConsent.getId(), accountReference.getResourceId(), devMessage);
+        return FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
     }
 
     private boolean isGlobalConsent(SpiAccountAccess accountAccess) {
@@ -472,7 +601,7 @@ public class AccountSpiImpl implements AccountSpi {
     }
 
     private List<SpiAccountDetails> getAccountDetailsByConsentId() {
-        return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
+        return Optional.ofNullable(accountListCacheService.getListOfAccounts())
                        .map(l -> l.stream().map(accountMapper::toSpiAccountDetails)
                                          .collect(Collectors.toList()))
                        .orElseGet(Collections::emptyList);
@@ -487,7 +616,7 @@ public class AccountSpiImpl implements AccountSpi {
     }
 
     private List<SpiAccountDetails> getAccountDetailsFromReferences(List<SpiAccountReference> references) {
-        List<AccountDetailsTO> accountDetails = accountRestClient.getListOfAccounts().getBody();
+        List<AccountDetailsTO> accountDetails = accountListCacheService.getListOfAccounts();
 
         if (accountDetails == null) {
             return Collections.emptyList();
@@ -530,10 +659,10 @@ public class AccountSpiImpl implements AccountSpi {
         return isConsentGlobal || isConsentForAvailableAccountsWithBalances;
     }
 
-    private GlobalScaResponseTO applyAuthorisation(byte[] aspspConsentData) {
-        GlobalScaResponseTO sca = consentDataService.response(aspspConsentData);
-        authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-        return sca;
+    private String applyAuthorisation(CachingAspspConsentDataProvider consentData) {
+        String accessToken = consentData.getScaResponse().getBearerToken().getAccess_token();
+        authRequestInterceptor.setAccessToken(accessToken);
+        return accessToken;
     }
 
     private boolean isValidAccountByAccess(String iban, List<SpiAccountReference> allowedAccountData) {
@@ -580,11 +709,32 @@ public class AccountSpiImpl implements AccountSpi {
     }
 
     private SpiAccountDetails enrichWithOwnerName(SpiAccountDetails spiAccountDetails, SpiAccountAccess accountAccess) {
-        IbanAccountReference ibanAccountReference = new IbanAccountReference(spiAccountDetails.getIban(), spiAccountDetails.getCurrency());
-        if (ownerNameService.shouldContainOwnerName(ibanAccountReference, accountAccess)) {
+        if (shouldContainOwnerName(spiAccountDetails, accountAccess)) {
             return ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetails);
         }
 
         return spiAccountDetails;
     }
+
+    private List<SpiAccountDetails> enrichWithOwnerName(List<SpiAccountDetails> spiAccountDetailsList, SpiAccountAccess accountAccess) {
+        List<SpiAccountDetails> accountDetailsToEnrich = spiAccountDetailsList.stream()
+                                                                 .filter(accountDetails -> shouldContainOwnerName(accountDetails, accountAccess))
+                                                                 .collect(Collectors.toList());
+        if (accountDetailsToEnrich.isEmpty()) {
+            return spiAccountDetailsList;
+        }
+
+        List<String> resourceIds = accountDetailsToEnrich.stream()
+                                           .map(SpiAccountDetails::getResourceId)
+                                           .collect(Collectors.toList());
+        Map<String, String> ownerNames = ownerNameService.getAccountOwnerNames(resourceIds);
+        accountDetailsToEnrich.forEach(accountDetails -> accountDetails.setOwnerName(ownerNames.get(accountDetails.getResourceId())));
+
+        return spiAccountDetailsList;
+    }
+
+    private boolean shouldContainOwnerName(SpiAccountDetails spiAccountDetails, SpiAccountAccess accountAccess) {
+        IbanAccountReference ibanAccountReference = new IbanAccountReference(spiAccountDetails.getIban(), spiAccountDetails.getCurrency());
+        return ownerNameService.shouldContainOwnerName(ibanAccountReference, accountAccess);
+    }
 }
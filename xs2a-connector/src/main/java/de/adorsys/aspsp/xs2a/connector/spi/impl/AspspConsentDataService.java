@@ -18,6 +18,7 @@ package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaResponseMapper;
 import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
@@ -27,14 +28,19 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
 public class AspspConsentDataService {
+    private static final String OBJECT_TYPE_FIELD = "objectType";
 
     private final ObjectMapper objectMapper;
     private final ScaResponseMapper scaResponseMapper;
     private final LoginAttemptAspspConsentDataService loginAttemptAspspConsentDataService;
+    private final ConsentDataCodec consentDataCodec;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
 
     /**
      * Default storage, makes sure there is a bearer token in the response object.
@@ -48,7 +54,7 @@ public class AspspConsentDataService {
             throw new IllegalStateException("Missing credentials, response must contain a bearer token by default.");
         }
         try {
-            return objectMapper.writeValueAsBytes(response);
+            return consentDataCodec.encode(response);
         } catch (IOException e) {
             throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, e.getMessage());
         }
@@ -78,9 +84,8 @@ public class AspspConsentDataService {
         }
     }
 
-    private String readType(byte[] tokenBytes) throws IOException {
-        JsonNode jsonNode = objectMapper.readTree(tokenBytes);
-        JsonNode objectType = jsonNode.get("objectType");
+    private String readType(JsonNode jsonNode) {
+        JsonNode objectType = jsonNode.get(OBJECT_TYPE_FIELD);
         if (objectType == null) {
             return null;
         }
@@ -88,17 +93,23 @@ public class AspspConsentDataService {
     }
 
     private GlobalScaResponseTO fromBytes(byte[] tokenBytes) throws IOException {
-        String type = readType(tokenBytes);
+        // bytes are parsed only once, the tree is bound to the type stored in it
+        JsonNode jsonNode = consentDataCodec.decode(tokenBytes);
+        String type = readType(jsonNode);
         if (type == null || GlobalScaResponseTO.class.getSimpleName().equals(type)) {
-            return objectMapper.readValue(tokenBytes, GlobalScaResponseTO.class);
+            return readValue(jsonNode, GlobalScaResponseTO.class);
         } else if (SCAConsentResponseTO.class.getSimpleName().equals(type)) {
-            SCAConsentResponseTO scaConsentResponseTO = objectMapper.readValue(tokenBytes, SCAConsentResponseTO.class);
+            SCAConsentResponseTO scaConsentResponseTO = readValue(jsonNode, SCAConsentResponseTO.class);
             return scaResponseMapper.toGlobalScaResponse(scaConsentResponseTO);
         } else if (SCAPaymentResponseTO.class.getSimpleName().equals(type)) {
-            SCAPaymentResponseTO scaPaymentResponseTO = objectMapper.readValue(tokenBytes, SCAPaymentResponseTO.class);
+            SCAPaymentResponseTO scaPaymentResponseTO = readValue(jsonNode, SCAPaymentResponseTO.class);
             return scaResponseMapper.toGlobalScaResponse(scaPaymentResponseTO);
         } else {
             return null;
         }
     }
+
+    private <T> T readValue(JsonNode jsonNode, Class<T> type) throws IOException {
+        return readers.computeIfAbsent(type, objectMapper::readerFor).readValue(jsonNode);
+    }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
+import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Wrapper around SpiAspspConsentDataProvider for the duration of a single SPI call.
+ * <p>
+ * Consent data is loaded and decoded at most once, changes are kept in memory and written to the wrapped provider
+ * only on {@link #flush()} and only if there were any. The wrapper is meant to be handed down to nested SPI calls
+ * of the same request, {@link #of(SpiAspspConsentDataProvider, AspspConsentDataService)} returns it as is then.
+ */
+public class CachingAspspConsentDataProvider implements SpiAspspConsentDataProvider {
+    private final SpiAspspConsentDataProvider aspspConsentDataProvider;
+    private final AspspConsentDataService consentDataService;
+
+    private byte[] aspspConsentData;
+    private boolean aspspConsentDataLoaded;
+    private GlobalScaResponseTO scaResponse;
+    private boolean dirty;
+
+    private CachingAspspConsentDataProvider(SpiAspspConsentDataProvider aspspConsentDataProvider, AspspConsentDataService consentDataService) {
+        this.aspspConsentDataProvider = aspspConsentDataProvider;
+        this.consentDataService = consentDataService;
+    }
+
+    public static CachingAspspConsentDataProvider of(@NotNull SpiAspspConsentDataProvider aspspConsentDataProvider,
+                                                     @NotNull AspspConsentDataService consentDataService) {
+        if (aspspConsentDataProvider instanceof CachingAspspConsentDataProvider) {
+            return (CachingAspspConsentDataProvider) aspspConsentDataProvider;
+        }
+        return new CachingAspspConsentDataProvider(aspspConsentDataProvider, consentDataService);
+    }
+
+    @NotNull
+    @Override
+    public byte[] loadAspspConsentData() {
+        if (!aspspConsentDataLoaded) {
+            aspspConsentData = scaResponse != null
+                                       ? consentDataService.store(scaResponse)
+                                       : aspspConsentDataProvider.loadAspspConsentData();
+            aspspConsentDataLoaded = true;
+        }
+        return aspspConsentData;
+    }
+
+    @Override
+    public void updateAspspConsentData(@Nullable byte[] bytes) {
+        aspspConsentData = bytes;
+        aspspConsentDataLoaded = true;
+        scaResponse = null;
+        dirty = true;
+    }
+
+    @Override
+    public void clearAspspConsentData() {
+        aspspConsentDataProvider.clearAspspConsentData();
+        aspspConsentData = null;
+        aspspConsentDataLoaded = false;
+        scaResponse = null;
+        dirty = false;
+    }
+
+    /**
+     * Returns the SCA response stored in consent data, decoding it on the first call only.
+     *
+     * @return decoded SCA response containing a bearer token
+     */
+    public GlobalScaResponseTO getScaResponse() {
+        if (scaResponse == null) {
+            scaResponse = consentDataService.response(loadAspspConsentData());
+        }
+        return scaResponse;
+    }
+
+    /**
+     * Replaces the SCA response stored in consent data, it is encoded and written on {@link #flush()}.
+     *
+     * @param response new SCA response
+     */
+    public void updateScaResponse(@NotNull GlobalScaResponseTO response) {
+        scaResponse = response;
+        aspspConsentData = null;
+        aspspConsentDataLoaded = false;
+        dirty = true;
+    }
+
+    /**
+     * Writes consent data to the wrapped provider if it was changed since it was loaded or last written.
+     */
+    public void flush() {
+        if (dirty) {
+            aspspConsentDataProvider.updateAspspConsentData(loadAspspConsentData());
+            dirty = false;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
@@ -69,11 +70,12 @@ public class CardAccountSpiImpl implements CardAccountSpi {
     private final FeignExceptionReader feignExceptionReader;
     private final IbanResolverMockService ibanResolverMockService;
     private final OwnerNameService ownerNameService;
+    private final AccountListCacheService accountListCacheService;
 
     public CardAccountSpiImpl(AccountRestClient restClient, LedgersSpiAccountMapper accountMapper,
                               AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService consentDataService,
                               FeignExceptionReader feignExceptionReader, IbanResolverMockService ibanResolverMockService,
-                              OwnerNameService ownerNameService) {
+                              OwnerNameService ownerNameService, AccountListCacheService accountListCacheService) {
         this.accountRestClient = restClient;
         this.accountMapper = accountMapper;
         this.authRequestInterceptor = authRequestInterceptor;
@@ -81,6 +83,7 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         this.feignExceptionReader = feignExceptionReader;
         this.ibanResolverMockService = ibanResolverMockService;
         this.ownerNameService = ownerNameService;
+        this.accountListCacheService = accountListCacheService;
     }
 
     @Override
@@ -297,7 +300,7 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         try {
             applyAuthorisation(aspspConsentData);
 
-            return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
+            return Optional.ofNullable(accountListCacheService.getListOfAccounts())
                            .map(l -> l.stream().map(accountMapper::toSpiCardAccountDetails).collect(Collectors.toList()))
                            .orElseGet(Collections::emptyList);
         } finally {
@@ -318,7 +321,7 @@ public class CardAccountSpiImpl implements CardAccountSpi {
                                                                         byte[] aspspConsentData) {
         applyAuthorisation(aspspConsentData);
 
-        List<AccountDetailsTO> accountDetails = accountRestClient.getListOfAccounts().getBody();
+        List<AccountDetailsTO> accountDetails = accountListCacheService.getListOfAccounts();
 
         if (accountDetails == null) {
             return Collections.emptyList();
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes objects stored as ASPSP consent data. Objects are written as JSON by default, with
+ * `xs2a.consent-data.binary-encoding.enabled=true` they are written as Smile (binary JSON) wrapped into an envelope of
+ * a magic header and a format version, so that the smaller blob is encrypted and persisted by CMS.
+ * Both formats are always read, the binary format should be enabled only once every connector instance sharing
+ * the CMS is able to read it.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConsentDataCodec {
+    static final byte[] MAGIC = {(byte) 0xC5, 'C', 'D'};
+    static final byte SMILE_VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    // only trees are written and read by this mapper, binding is done by the application object mapper
+    private static final ObjectMapper SMILE_MAPPER = new ObjectMapper(new SmileFactory());
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${xs2a.consent-data.binary-encoding.enabled:false}")
+    private boolean binaryEncodingEnabled;
+
+    public byte[] encode(Object value) throws IOException {
+        if (!binaryEncodingEnabled) {
+            return objectMapper.writeValueAsBytes(value);
+        }
+        JsonNode jsonNode = objectMapper.valueToTree(value);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(512);
+        outputStream.write(MAGIC);
+        outputStream.write(SMILE_VERSION);
+        SMILE_MAPPER.writeValue(outputStream, jsonNode);
+        return outputStream.toByteArray();
+    }
+
+    public JsonNode decode(byte[] bytes) throws IOException {
+        if (!hasEnvelope(bytes)) {
+            return objectMapper.readTree(bytes);
+        }
+        byte version = bytes[MAGIC.length];
+        if (version != SMILE_VERSION) {
+            throw new IOException("Unsupported consent data format version: " + version);
+        }
+        return SMILE_MAPPER.readTree(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+    }
+
+    private boolean hasEnvelope(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
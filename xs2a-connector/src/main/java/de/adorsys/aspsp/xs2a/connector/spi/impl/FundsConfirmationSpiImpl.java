@@ -19,7 +19,6 @@ package de.adorsys.aspsp.xs2a.connector.spi.impl;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.ledgers.keycloak.client.api.KeycloakTokenService;
 import de.adorsys.ledgers.middleware.api.domain.account.FundsConfirmationRequestTO;
-import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
@@ -70,9 +69,12 @@ public class FundsConfirmationSpiImpl implements FundsConfirmationSpi {
                                                                                           @Nullable SpiPiisConsent piisConsent,
                                                                                           @NotNull SpiFundsConfirmationRequest spiFundsConfirmationRequest,
                                                                                           @Nullable SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        byte[] aspspConsentData = piisConsent == null || aspspConsentDataProvider == null
+        CachingAspspConsentDataProvider consentData = aspspConsentDataProvider == null
+                                                              ? null
+                                                              : CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
+        byte[] aspspConsentData = piisConsent == null || consentData == null
                                           ? null
-                                          : aspspConsentDataProvider.loadAspspConsentData();
+                                          : consentData.loadAspspConsentData();
         try {
             String tokenForAuthorisation;
 
@@ -82,8 +84,7 @@ public class FundsConfirmationSpiImpl implements FundsConfirmationSpi {
                 tokenForAuthorisation = getTokenForFundsConfirmationUser();
             } else {
                 // This is normal flow when PIIS consent is supported in ASPSP profile.
-                GlobalScaResponseTO response = consentDataService.response(aspspConsentData);
-                tokenForAuthorisation = response.getBearerToken().getAccess_token();
+                tokenForAuthorisation = consentData.getScaResponse().getBearerToken().getAccess_token();
             }
 
             authRequestInterceptor.setAccessToken(tokenForAuthorisation);
@@ -96,8 +97,8 @@ public class FundsConfirmationSpiImpl implements FundsConfirmationSpi {
             SpiFundsConfirmationResponse spiFundsConfirmationResponse = new SpiFundsConfirmationResponse();
             spiFundsConfirmationResponse.setFundsAvailable(Optional.ofNullable(fundsAvailable).orElse(false));
 
-            if (aspspConsentDataProvider != null) {
-                aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentDataService.response(aspspConsentData)));
+            if (consentData != null) {
+                consentData.flush();
             }
 
             return SpiResponse.<SpiFundsConfirmationResponse>builder()
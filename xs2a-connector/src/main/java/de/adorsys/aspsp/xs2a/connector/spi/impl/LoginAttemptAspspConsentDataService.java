@@ -18,6 +18,7 @@ package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -33,10 +34,12 @@ public class LoginAttemptAspspConsentDataService {
     private int loginFailedMax;
 
     private final ObjectMapper objectMapper;
+    private final ConsentDataCodec consentDataCodec;
+    private ObjectReader loginAttemptResponseReader;
 
     public byte[] store(LoginAttemptResponse response) {
         try {
-            return objectMapper.writeValueAsBytes(response);
+            return consentDataCodec.encode(response);
         } catch (IOException e) {
             throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, e.getMessage());
         }
@@ -51,15 +54,21 @@ public class LoginAttemptAspspConsentDataService {
     }
 
     private LoginAttemptResponse fromBytes(byte[] bytes) throws IOException {
-        String type = readType(bytes);
-        if (LoginAttemptResponse.class.getSimpleName().equals(type)) {
-            return objectMapper.readValue(bytes, LoginAttemptResponse.class);
+        JsonNode jsonNode = consentDataCodec.decode(bytes);
+        if (LoginAttemptResponse.class.getSimpleName().equals(readType(jsonNode))) {
+            return getLoginAttemptResponseReader().readValue(jsonNode);
         }
         return null;
     }
 
-    private String readType(byte[] tokenBytes) throws IOException {
-        JsonNode jsonNode = objectMapper.readTree(tokenBytes);
+    private ObjectReader getLoginAttemptResponseReader() {
+        if (loginAttemptResponseReader == null) {
+            loginAttemptResponseReader = objectMapper.readerFor(LoginAttemptResponse.class);
+        }
+        return loginAttemptResponseReader;
+    }
+
+    private String readType(JsonNode jsonNode) {
         JsonNode objectType = jsonNode.get("objectType");
         if (objectType == null) {
             return null;
@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl.authorisation;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.AisConsentMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaMethodConverter;
@@ -30,7 +31,6 @@ import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.StartScaOprTO;
 import de.adorsys.ledgers.middleware.api.domain.um.AisConsentTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
-import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.OperationInitiationRestClient;
 import de.adorsys.ledgers.rest.client.RedirectScaRestClient;
@@ -77,7 +77,7 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
 
     private static final String SCA_STATUS_LOG = "SCA status is {}";
 
-    private final AccountRestClient accountRestClient;
+    private final AccountListCacheService accountListCacheService;
     private final LedgersSpiAccountMapper accountMapper;
     private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService consentDataService;
@@ -95,7 +95,7 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
     public AisConsentSpiImpl(AuthRequestInterceptor authRequestInterceptor, //NOSONAR
                              AspspConsentDataService consentDataService, GeneralAuthorisationService authorisationService,
                              ScaMethodConverter scaMethodConverter, FeignExceptionReader feignExceptionReader,
-                             AccountRestClient accountRestClient, LedgersSpiAccountMapper accountMapper,
+                             AccountListCacheService accountListCacheService, LedgersSpiAccountMapper accountMapper,
                              MultilevelScaService multilevelScaService, RedirectScaRestClient redirectScaRestClient,
                              KeycloakTokenService keycloakTokenService, AisConsentMapper aisConsentMapper,
                              ConsentAuthConfirmationCodeService authConfirmationCodeService,
@@ -107,7 +107,7 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
         this.authRequestInterceptor = authRequestInterceptor;
         this.consentDataService = consentDataService;
         this.feignExceptionReader = feignExceptionReader;
-        this.accountRestClient = accountRestClient;
+        this.accountListCacheService = accountListCacheService;
         this.accountMapper = accountMapper;
         this.multilevelScaService = multilevelScaService;
         this.redirectScaRestClient = redirectScaRestClient;
@@ -169,6 +169,9 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
             GlobalScaResponseTO sca = consentDataService.response(aspspConsentDataProvider.loadAspspConsentData(), false);
             sca.setScaStatus(ScaStatusTO.FINALISED);
             sca.setStatusDate(LocalDateTime.now());
+            Optional.ofNullable(sca.getBearerToken())
+                    .map(BearerTokenTO::getAccess_token)
+                    .ifPresent(accountListCacheService::evictByAccessToken);
             sca.setBearerToken(new BearerTokenTO());// remove existing token.
 
             String scaStatusName = sca.getScaStatus().name();
@@ -381,7 +384,7 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
     }
 
     private List<SpiAccountReference> getReferences() {
-        return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
+        return Optional.ofNullable(accountListCacheService.getListOfAccounts())
                        .map(l -> l.stream().map(accountMapper::toSpiAccountDetails)
                                          .map(SpiAccountReference::new).collect(Collectors.toList()))
                        .orElseGet(Collections::emptyList);
@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl.payment;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.cms.CmsPsuPisClient;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.*;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
@@ -24,6 +25,7 @@ import de.adorsys.ledgers.middleware.api.domain.payment.TransactionStatusTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.OpTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.OperationInitiationRestClient;
 import de.adorsys.ledgers.rest.client.PaymentRestClient;
@@ -78,6 +80,7 @@ public class GeneralPaymentService {
     private final CmsPsuPisClient cmsPsuPisClient;
     private final RequestProviderService requestProviderService;
     private final OperationInitiationRestClient operationInitiationRestClient;
+    private final AccountListCacheService accountListCacheService;
 
     public GeneralPaymentService(PaymentRestClient ledgersRestClient, //NOSONAR
                                  AuthRequestInterceptor authRequestInterceptor,
@@ -87,7 +90,8 @@ public class GeneralPaymentService {
                                  MultilevelScaService multilevelScaService,
                                  RedirectScaRestClient redirectScaRestClient, CmsPsuPisClient cmsPsuPisClient,
                                  RequestProviderService requestProviderService,
-                                 OperationInitiationRestClient operationInitiationRestClient) {
+                                 OperationInitiationRestClient operationInitiationRestClient,
+                                 AccountListCacheService accountListCacheService) {
         this.paymentRestClient = ledgersRestClient;
         this.authRequestInterceptor = authRequestInterceptor;
         this.consentDataService = consentDataService;
@@ -98,6 +102,7 @@ public class GeneralPaymentService {
         this.cmsPsuPisClient = cmsPsuPisClient;
         this.requestProviderService = requestProviderService;
         this.operationInitiationRestClient = operationInitiationRestClient;
+        this.accountListCacheService = accountListCacheService;
     }
 
     /**
@@ -236,6 +241,7 @@ public class GeneralPaymentService {
                     cmsPsuPisClient.updatePaymentStatus(paymentExecutionResponse.getOperationObjectId(), //NOSONAR
                                                         getTransactionStatus(paymentExecutionResponse.getTransactionStatus()),
                                                         requestProviderService.getInstanceId());
+                    accountListCacheService.evictByTokenSubject(authRequestInterceptor.getAccessToken());
                 }
 
                 aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(paymentAuthorisationValidationResponseBody));
@@ -300,6 +306,9 @@ public class GeneralPaymentService {
 
                 logger.info("SCA status is: {}", scaStatusName);
                 logger.info("Payment scheduled for execution. Transaction status is: {}. Also see SCA status", transactionStatusTO);
+                Optional.ofNullable(response.getBearerToken())
+                        .map(BearerTokenTO::getAccess_token)
+                        .ifPresent(accountListCacheService::evictByTokenSubject);
 
                 return SpiResponse.<SpiPaymentExecutionResponse>builder()
                                .payload(spiPaymentExecutionResponse(transactionStatusTO))
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.service;
+
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Position in a transaction report, carried as opaque `cursor` query parameter of the pagination links.
+ * <p>
+ * The date window of the first page is kept for all following pages, so bookings outside of it never shift the pages.
+ * The key (booking date, transaction ID) of the last delivered transaction is kept as well: if bookings inside
+ * of the window moved it onto the next page, everything up to it is skipped, so no transaction is delivered twice.
+ * <p>
+ * The encoded cursor is signed with an HMAC, so that a TPP can't change the account or the date window it points to.
+ */
+@Getter
+@EqualsAndHashCode
+public class TransactionCursor {
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "|";
+    private static final String SIGNATURE_SEPARATOR = ".";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final String resourceId;
+    private final LocalDate dateFrom;
+    private final LocalDate dateTo;
+    private final int page;
+    private final int size;
+    private final LocalDate lastBookingDate;
+    private final String lastTransactionId;
+
+    public TransactionCursor(String resourceId, LocalDate dateFrom, LocalDate dateTo, int page, int size) {
+        this(resourceId, dateFrom, dateTo, page, size, null, null);
+    }
+
+    private TransactionCursor(String resourceId, LocalDate dateFrom, LocalDate dateTo, int page, int size,
+                              LocalDate lastBookingDate, String lastTransactionId) {
+        this.resourceId = resourceId;
+        this.dateFrom = dateFrom;
+        this.dateTo = dateTo;
+        this.page = page;
+        this.size = size;
+        this.lastBookingDate = lastBookingDate;
+        this.lastTransactionId = lastTransactionId;
+    }
+
+    /**
+     * Cursor of the page following the given one, keyed by its last transaction.
+     *
+     * @param transactions transactions delivered for the current page
+     * @return cursor of the next page
+     */
+    public TransactionCursor next(List<TransactionTO> transactions) {
+        if (transactions == null || transactions.isEmpty()) {
+            return new TransactionCursor(resourceId, dateFrom, dateTo, page + 1, size, lastBookingDate, lastTransactionId);
+        }
+        TransactionTO lastTransaction = transactions.get(transactions.size() - 1);
+        return new TransactionCursor(resourceId, dateFrom, dateTo, page + 1, size, lastTransaction.getBookingDate(), lastTransaction.getTransactionId());
+    }
+
+    public TransactionCursor withPage(int page) {
+        return new TransactionCursor(resourceId, dateFrom, dateTo, page, size);
+    }
+
+    /**
+     * Removes transactions already delivered with the previous page, i.e. the last transaction of the previous page
+     * and everything before it, if they were shifted onto this page.
+     *
+     * @param transactions transactions of the page returned by Ledgers
+     * @return transactions not delivered yet
+     */
+    public List<TransactionTO> skipDelivered(List<TransactionTO> transactions) {
+        if (transactions == null || lastTransactionId == null) {
+            return transactions;
+        }
+        for (int i = 0; i < transactions.size(); i++) {
+            TransactionTO transaction = transactions.get(i);
+            if (lastTransactionId.equals(transaction.getTransactionId()) && Objects.equals(lastBookingDate, transaction.getBookingDate())) {
+                return transactions.subList(i + 1, transactions.size());
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * Encodes the cursor as URL safe token signed with the given key.
+     *
+     * @param signingKey key of the HMAC
+     * @return encoded cursor
+     */
+    public String encode(byte[] signingKey) {
+        String value = String.join(SEPARATOR, VERSION, resourceId, String.valueOf(dateFrom), String.valueOf(dateTo),
+                                   String.valueOf(page), String.valueOf(size),
+                                   lastBookingDate == null ? "" : lastBookingDate.toString(),
+                                   StringUtils.defaultString(lastTransactionId));
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String payload = encoder.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        return payload + SIGNATURE_SEPARATOR + encoder.encodeToString(sign(payload, signingKey));
+    }
+
+    /**
+     * Reads a cursor from its encoded form.
+     *
+     * @param token      encoded cursor
+     * @param signingKey key of the HMAC the cursor was signed with
+     * @return the cursor, empty if the token is not a valid cursor or its signature doesn't match
+     */
+    public static Optional<TransactionCursor> decode(String token, byte[] signingKey) {
+        try {
+            int signatureIndex = token.indexOf(SIGNATURE_SEPARATOR);
+            if (signatureIndex < 0) {
+                return Optional.empty();
+            }
+            String payload = token.substring(0, signatureIndex);
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(signatureIndex + 1));
+            if (!MessageDigest.isEqual(sign(payload, signingKey), signature)) {
+                return Optional.empty();
+            }
+            String value = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+            // the transaction ID is the last part, so it may contain the separator
+            String[] parts = value.split(Pattern.quote(SEPARATOR), 8);
+            if (parts.length != 8 || !VERSION.equals(parts[0])) {
+                return Optional.empty();
+            }
+            int page = Integer.parseInt(parts[4]);
+            int size = Integer.parseInt(parts[5]);
+            if (page < 0 || size <= 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new TransactionCursor(parts[1], LocalDate.parse(parts[2]), LocalDate.parse(parts[3]), page, size,
+                                                     parts[6].isEmpty() ? null : LocalDate.parse(parts[6]),
+                                                     parts[7].isEmpty() ? null : parts[7]));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] sign(String payload, byte[] signingKey) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey, HMAC_ALGORITHM));
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Can't sign transaction cursor", e);
+        }
+    }
+}
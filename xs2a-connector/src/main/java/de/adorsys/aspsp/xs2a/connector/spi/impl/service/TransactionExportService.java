@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.DownloadFileStatus;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileContentWriter;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileManagementService;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestAsyncClient;
+import de.adorsys.ledgers.util.domain.CustomPageImpl;
+import de.adorsys.psd2.mapper.Xs2aObjectMapper;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Writes all transactions of a long date window into the download file of a transaction report. With sharded export
+ * enabled the download file of the first page of such a report, requested in a file format, therefore contains the
+ * whole window, not only the requested page. The export of a window is started once per consent, further requests
+ * for the same window get the download link of the running or written export.
+ * <p>
+ * The window is split into calendar month shards, up to `xs2a.transaction.export.parallelism` shards are requested
+ * from Ledgers concurrently on the executor of {@link AccountRestAsyncClient}. Shards are written in booking date
+ * order, each as soon as all of its pages are received and all earlier shards are written, so at most one shard and
+ * one page of every other shard in flight are held in memory. Transactions of a shard are sorted by booking date and
+ * transaction ID, so that transactions of the same day always have the same order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+    private static final Comparator<TransactionTO> BOOKING_ORDER =
+            Comparator.comparing(TransactionTO::getBookingDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+                    .thenComparing(TransactionTO::getTransactionId, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+    private static final int MAX_TRACKED_EXPORTS = 1000;
+
+    private final AccountRestAsyncClient accountRestAsyncClient;
+    private final LedgersSpiAccountMapper accountMapper;
+    private final Xs2aObjectMapper xs2aObjectMapper;
+    private final FileManagementService fileManagementService;
+
+    // download links of started exports by consent and window, the least recently requested are forgotten first
+    private final Map<String, String> exportDownloadLinks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_TRACKED_EXPORTS;
+        }
+    };
+
+    @Value("${xs2a.transaction.export.sharded.enabled:false}")
+    private boolean shardedExportEnabled;
+    @Value("${xs2a.transaction.export.parallelism:4}")
+    private int parallelism;
+    @Value("${xs2a.transaction.export.page-size:500}")
+    private int pageSize;
+    @Value("${xs2a.transaction.export.min-window-days:92}")
+    private int minWindowDays;
+
+    /**
+     * @return true if the download file of a report for the given window is written by this service
+     */
+    public boolean isShardedExport(LocalDate dateFrom, LocalDate dateTo) {
+        return shardedExportEnabled
+                       && ChronoUnit.DAYS.between(dateFrom, dateTo) + 1 >= minWindowDays
+                       && dateFrom.withDayOfMonth(1).isBefore(dateTo.withDayOfMonth(1));
+    }
+
+    /**
+     * Returns the download link of the export of the window, the export is started only if there is no
+     * running or written export of the window for the consent yet.
+     *
+     * @param consentId           ID of the consent the report is requested for
+     * @param accessToken         bearer token the transactions are requested with
+     * @param resourceId          ID of the account
+     * @param dateFrom            first booking date of the export
+     * @param dateTo              last booking date of the export
+     * @param downloadLinkBuilder saves the file written by the given writer and returns its download link
+     * @return download link of the export
+     */
+    public String getExportDownloadLink(String consentId, String accessToken, String resourceId, LocalDate dateFrom, LocalDate dateTo,
+                                        Function<FileContentWriter, String> downloadLinkBuilder) {
+        String exportKey = String.join(":", consentId, resourceId, dateFrom.toString(), dateTo.toString());
+        synchronized (exportDownloadLinks) {
+            String downloadLink = exportDownloadLinks.get(exportKey);
+            if (downloadLink != null && isAvailable(downloadLink)) {
+                return downloadLink;
+            }
+            downloadLink = downloadLinkBuilder.apply(exportWriter(accessToken, resourceId, dateFrom, dateTo));
+            if (StringUtils.isNotEmpty(downloadLink)) {
+                exportDownloadLinks.put(exportKey, downloadLink);
+            }
+            return downloadLink;
+        }
+    }
+
+    /**
+     * Builds the writer of the download file. Transactions are requested only when the file is written,
+     * i.e. on the thread of the file management service, so the bearer token is passed explicitly.
+     *
+     * @param accessToken bearer token the transactions are requested with
+     * @param resourceId  ID of the account
+     * @param dateFrom    first booking date of the export
+     * @param dateTo      last booking date of the export
+     * @return writer of a JSON array of all transactions of the window
+     */
+    FileContentWriter exportWriter(String accessToken, String resourceId, LocalDate dateFrom, LocalDate dateTo) {
+        return outputStream -> export(outputStream, accessToken, resourceId, splitIntoMonths(dateFrom, dateTo));
+    }
+
+    private boolean isAvailable(String downloadLink) {
+        DownloadFileStatus fileStatus = fileManagementService.getFileStatus(downloadLink);
+        return fileStatus == DownloadFileStatus.PENDING || fileStatus == DownloadFileStatus.READY;
+    }
+
+    List<LocalDate[]> splitIntoMonths(LocalDate dateFrom, LocalDate dateTo) {
+        List<LocalDate[]> shards = new ArrayList<>();
+        LocalDate shardFrom = dateFrom;
+        while (!shardFrom.isAfter(dateTo)) {
+            LocalDate monthEnd = shardFrom.with(TemporalAdjusters.lastDayOfMonth());
+            LocalDate shardTo = monthEnd.isBefore(dateTo) ? monthEnd : dateTo;
+            shards.add(new LocalDate[]{shardFrom, shardTo});
+            shardFrom = shardTo.plusDays(1);
+        }
+        return shards;
+    }
+
+    private void export(OutputStream outputStream, String accessToken, String resourceId, List<LocalDate[]> shards) throws IOException {
+        Deque<ShardExport> shardExports = new ArrayDeque<>();
+        Iterator<LocalDate[]> pendingShards = shards.iterator();
+        int maxShardsInFlight = Math.max(parallelism, 1);
+        long transactionsCount = 0;
+
+        try (JsonGenerator generator = xs2aObjectMapper.createGenerator(outputStream)) {
+            generator.writeStartArray();
+            while (pendingShards.hasNext() && shardExports.size() < maxShardsInFlight) {
+                shardExports.add(new ShardExport(accessToken, resourceId, pendingShards.next()));
+            }
+            while (!shardExports.isEmpty()) {
+                // Ledgers does not return the pages of a shard in booking order, so the shard is sorted as a whole
+                List<TransactionTO> transactions = shardExports.peek().takeAllPages();
+                shardExports.poll();
+                if (pendingShards.hasNext()) {
+                    shardExports.add(new ShardExport(accessToken, resourceId, pendingShards.next()));
+                }
+                transactions.sort(BOOKING_ORDER);
+                for (SpiTransaction transaction : accountMapper.toSpiTransactions(transactions)) {
+                    generator.writeObject(transaction);
+                }
+                transactionsCount += transactions.size();
+            }
+            generator.writeEndArray();
+        } finally {
+            shardExports.forEach(ShardExport::cancel);
+        }
+        log.info("Exported {} transactions of account {} in {} shards", transactionsCount, resourceId, shards.size());
+    }
+
+    private CustomPageImpl<TransactionTO> awaitPage(CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> pageCall) throws IOException {
+        try {
+            return pageCall.join().getBody();
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Transaction export was cancelled");
+        } catch (CompletionException e) {
+            // the file writer reports only IO errors as failed files
+            throw new IOException("Requesting transactions failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Pages of one month shard, the next page is requested as soon as the current one is taken.
+     */
+    private class ShardExport {
+        private final String accessToken;
+        private final String resourceId;
+        private final LocalDate dateFrom;
+        private final LocalDate dateTo;
+        private int page;
+        private CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> pageCall;
+
+        private ShardExport(String accessToken, String resourceId, LocalDate[] shard) {
+            this.accessToken = accessToken;
+            this.resourceId = resourceId;
+            this.dateFrom = shard[0];
+            this.dateTo = shard[1];
+            this.pageCall = requestPage();
+        }
+
+        private List<TransactionTO> takePage() throws IOException {
+            CustomPageImpl<TransactionTO> transactionsOnPage = awaitPage(pageCall);
+            List<TransactionTO> transactions = transactionsOnPage != null && transactionsOnPage.getContent() != null
+                                                       ? new ArrayList<>(transactionsOnPage.getContent())
+                                                       : new ArrayList<>();
+            if (transactions.isEmpty() || transactionsOnPage.isLastPage()) {
+                pageCall = null;
+            } else {
+                page++;
+                pageCall = requestPage();
+            }
+            return transactions;
+        }
+
+        private List<TransactionTO> takeAllPages() throws IOException {
+            List<TransactionTO> transactions = new ArrayList<>();
+            while (!isCompleted()) {
+                transactions.addAll(takePage());
+            }
+            return transactions;
+        }
+
+        private boolean isCompleted() {
+            return pageCall == null;
+        }
+
+        private void cancel() {
+            if (pageCall != null) {
+                pageCall.cancel(false);
+            }
+        }
+
+        private CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> requestPage() {
+            return accountRestAsyncClient.getTransactionByDatesPaged(accessToken, resourceId, dateFrom, dateTo, page, pageSize);
+        }
+    }
+}
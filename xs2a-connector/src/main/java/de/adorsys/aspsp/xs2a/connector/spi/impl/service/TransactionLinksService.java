@@ -20,18 +20,73 @@ import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
 import de.adorsys.ledgers.util.domain.CustomPageImpl;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransactionLinks;
 import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionLinksService {
     private static final String PAGE_INDEX_QUERY_PARAM = "pageIndex";
+    private static final String CURSOR_QUERY_PARAM = "cursor";
+    private static final int GENERATED_KEY_LENGTH = 32;
     private final HttpServletRequest request;
 
+    @Value("${xs2a.transaction.list.cursor.enabled:false}")
+    private boolean cursorEnabled;
+    @Value("${xs2a.transaction.list.cursor.signing-key:}")
+    private String cursorSigningKey;
+
+    private byte[] signingKey;
+
+    @PostConstruct
+    public void initSigningKey() {
+        if (StringUtils.isNotEmpty(cursorSigningKey)) {
+            signingKey = cursorSigningKey.getBytes(StandardCharsets.UTF_8);
+        } else {
+            // cursors signed with a generated key are valid for this instance only
+            signingKey = new byte[GENERATED_KEY_LENGTH];
+            new SecureRandom().nextBytes(signingKey);
+        }
+    }
+
+    public boolean isCursorEnabled() {
+        return cursorEnabled;
+    }
+
+    /**
+     * Checks whether the current request pages a transaction report by a `cursor` query parameter.
+     *
+     * @return true if cursor links are enabled and the request has a cursor, regardless of its validity
+     */
+    public boolean isCursorRequested() {
+        return cursorEnabled && request.getParameter(CURSOR_QUERY_PARAM) != null;
+    }
+
+    /**
+     * Reads the cursor of the requested page from the `cursor` query parameter.
+     *
+     * @param resourceId ID of the requested account, cursors of other accounts are ignored
+     * @return cursor of the requested page, empty if cursor links are disabled or the request has no valid cursor
+     * for this account
+     */
+    public Optional<TransactionCursor> getCursor(String resourceId) {
+        if (!cursorEnabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(request.getParameter(CURSOR_QUERY_PARAM))
+                       .flatMap(token -> TransactionCursor.decode(token, signingKey))
+                       .filter(cursor -> cursor.getResourceId().equals(resourceId));
+    }
+
     public SpiTransactionLinks buildSpiTransactionLinks(int currentPage, int itemsPerPage, CustomPageImpl<TransactionTO> transactionsOnPage) {
         if (transactionsOnPage == null) {
             return null;
@@ -53,4 +108,21 @@ public class TransactionLinksService {
         String last = transactionsOnPage.isLastPage() ? null : lastPage.toUriString();
         return new SpiTransactionLinks(first, next, previous, last);
     }
+
+    public SpiTransactionLinks buildSpiTransactionLinks(TransactionCursor cursor, CustomPageImpl<TransactionTO> transactionsOnPage) {
+        if (transactionsOnPage == null) {
+            return null;
+        }
+        String first = transactionsOnPage.isFirstPage() ? null : buildCursorLink(cursor.withPage(0));
+        String next = transactionsOnPage.isLastPage() ? null : buildCursorLink(cursor.next(transactionsOnPage.getContent()));
+        String previous = transactionsOnPage.isFirstPage() ? null : buildCursorLink(cursor.withPage(cursor.getPage() - 1));
+        String last = transactionsOnPage.isLastPage() ? null : buildCursorLink(cursor.withPage(transactionsOnPage.getTotalPages() - 1));
+        return new SpiTransactionLinks(first, next, previous, last);
+    }
+
+    private String buildCursorLink(TransactionCursor cursor) {
+        return UriComponentsBuilder.fromPath(request.getRequestURI())
+                       .queryParam(CURSOR_QUERY_PARAM, cursor.encode(signingKey))
+                       .toUriString();
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountListCacheServiceTest {
+    private static final String IBAN = "DE89370400440532013000";
+    private static final String FIRST_PSU_TOKEN = buildToken("first-psu", "1", "consent-1");
+    private static final String FIRST_PSU_REFRESHED_TOKEN = buildToken("first-psu", "2", "consent-1");
+    private static final String FIRST_PSU_OTHER_CONSENT_TOKEN = buildToken("first-psu", "3", "consent-2");
+    private static final String SECOND_PSU_TOKEN = buildToken("second-psu", "1", "consent-3");
+
+    @Mock
+    private AccountRestClient accountRestClient;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @InjectMocks
+    private AccountListCacheService accountListCacheService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(accountListCacheService, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(accountListCacheService, "maxSize", 10);
+    }
+
+    @Test
+    void getListOfAccounts_sameToken_shouldRequestLedgersOnce() {
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        List<AccountDetailsTO> first = accountListCacheService.getListOfAccounts();
+        List<AccountDetailsTO> second = accountListCacheService.getListOfAccounts();
+
+        assertEquals(first, second);
+        verify(accountRestClient, times(1)).getListOfAccounts();
+    }
+
+    @Test
+    void getListOfAccounts_refreshedToken_shouldReplaceEntryOnceAcceptedByLedgers() {
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN, FIRST_PSU_REFRESHED_TOKEN, FIRST_PSU_TOKEN, FIRST_PSU_REFRESHED_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        verify(accountRestClient, times(2)).getListOfAccounts();
+        assertEquals(1, accountListCacheService.size());
+    }
+
+    @Test
+    void getListOfAccounts_tokenWithSameClaims_shouldRequestLedgers() {
+        String forgedToken = FIRST_PSU_TOKEN.substring(0, FIRST_PSU_TOKEN.lastIndexOf('.')) + ".forged";
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN, forgedToken);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        verify(accountRestClient, times(2)).getListOfAccounts();
+    }
+
+    @Test
+    void getListOfAccounts_withinTtl_shouldReturnDetailsWithBalancesOfFirstRequest() {
+        List<AccountDetailsTO> firstAccounts = buildAccounts();
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(firstAccounts), ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        List<AccountDetailsTO> cached = accountListCacheService.getListOfAccounts();
+        accountListCacheService.evictByTokenSubject(FIRST_PSU_TOKEN);
+        List<AccountDetailsTO> afterEviction = accountListCacheService.getListOfAccounts();
+
+        // balances are part of the details, they are as old as the cache entry
+        assertSame(firstAccounts.get(0), cached.get(0));
+        assertNotSame(firstAccounts.get(0), afterEviction.get(0));
+        verify(accountRestClient, times(2)).getListOfAccounts();
+    }
+
+    @Test
+    void getListOfAccounts_otherConsent_shouldRequestLedgers() {
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN, FIRST_PSU_OTHER_CONSENT_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        verify(accountRestClient, times(2)).getListOfAccounts();
+        assertEquals(2, accountListCacheService.size());
+    }
+
+    @Test
+    void getListOfAccounts_tokenWithoutSubject_shouldNotCache() {
+        when(authRequestInterceptor.getAccessToken()).thenReturn("header.e30.signature");
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        verify(accountRestClient, times(2)).getListOfAccounts();
+        assertEquals(0, accountListCacheService.size());
+    }
+
+    @Test
+    void getListOfAccounts_noToken_shouldNotCache() {
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        verify(accountRestClient, times(2)).getListOfAccounts();
+        assertEquals(0, accountListCacheService.size());
+    }
+
+    @Test
+    void getListOfAccounts_zeroTtl_shouldNotCache() {
+        ReflectionTestUtils.setField(accountListCacheService, "ttlSeconds", 0L);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        verify(accountRestClient, times(2)).getListOfAccounts();
+    }
+
+    @Test
+    void getListOfAccounts_maxSizeExceeded_shouldDropLeastRecentlyUsed() {
+        ReflectionTestUtils.setField(accountListCacheService, "maxSize", 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        accountListCacheService.bindTo(registry);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN, SECOND_PSU_TOKEN, FIRST_PSU_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        verify(accountRestClient, times(3)).getListOfAccounts();
+        assertEquals(1, accountListCacheService.size());
+        assertEquals(2, registry.get("xs2a.connector.account-list.cache.size-evictions").functionCounter().count());
+        assertEquals(0, registry.get("xs2a.connector.account-list.cache.evictions").functionCounter().count());
+    }
+
+    @Test
+    void evictByAccessToken_shouldDropOnlyConsentOfToken() {
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN, FIRST_PSU_OTHER_CONSENT_TOKEN, FIRST_PSU_OTHER_CONSENT_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        accountListCacheService.evictByAccessToken(FIRST_PSU_REFRESHED_TOKEN);
+
+        assertEquals(1, accountListCacheService.size());
+        accountListCacheService.getListOfAccounts();
+        verify(accountRestClient, times(2)).getListOfAccounts();
+    }
+
+    @Test
+    void evictByTokenSubject_shouldDropAllTokensOfPsu() {
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN, FIRST_PSU_OTHER_CONSENT_TOKEN, SECOND_PSU_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        accountListCacheService.evictByTokenSubject(buildToken("first-psu", "4", null));
+
+        assertEquals(1, accountListCacheService.size());
+    }
+
+    @Test
+    void bindTo_shouldExposeHitsAndMisses() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        accountListCacheService.bindTo(registry);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(FIRST_PSU_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(buildAccounts()));
+
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+        accountListCacheService.getListOfAccounts();
+
+        assertEquals(2, registry.get("xs2a.connector.account-list.cache.hits").functionCounter().count());
+        assertEquals(1, registry.get("xs2a.connector.account-list.cache.misses").functionCounter().count());
+        assertEquals(1, registry.get("xs2a.connector.account-list.cache.size").gauge().value());
+    }
+
+    private static List<AccountDetailsTO> buildAccounts() {
+        AccountDetailsTO accountDetails = new AccountDetailsTO();
+        accountDetails.setIban(IBAN);
+        return Collections.singletonList(accountDetails);
+    }
+
+    private static String buildToken(String subject, String tokenId, String consentId) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+        String consent = consentId != null ? ",\"consent\":{\"id\":\"" + consentId + "\"}" : "";
+        String payload = encoder.encodeToString(("{\"sub\":\"" + subject + "\",\"jti\":\"" + tokenId + "\"" + consent + "}").getBytes(StandardCharsets.UTF_8));
+        return header + "." + payload + ".signature";
+    }
+}
@@ -21,30 +21,35 @@ import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountIdentifierTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AdditionalAccountInformationTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
+import feign.FeignException;
 import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Currency;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class OwnerNameServiceTest {
     private static final String RESOURCE_ID = "11111-999999999";
+    private static final String RESOURCE_ID_SECOND_ACCOUNT = "11111-999999998";
+    private static final String ACCESS_TOKEN = "access_token";
     private static final String PAN = "4937023494670836";
     private static final String ACCOUNT_OWNER_NAME = "account owner name";
     private static final String ACCOUNT_OWNER_NAME_2 = "different account owner name";
@@ -56,11 +61,25 @@ class OwnerNameServiceTest {
     private AccountRestClient accountRestClient;
     @Mock
     private IbanResolverMockService ibanResolverMockService;
-    @InjectMocks
+    @Spy
+    private AuthRequestInterceptor authRequestInterceptor = new AuthRequestInterceptor();
+
+    private ExecutorService ledgersAsyncExecutor;
     private OwnerNameService ownerNameService;
 
     private JsonReader jsonReader = new JsonReader();
 
+    @BeforeEach
+    void setUp() {
+        ledgersAsyncExecutor = Executors.newFixedThreadPool(1);
+        ownerNameService = new OwnerNameService(accountRestClient, ibanResolverMockService, authRequestInterceptor, ledgersAsyncExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgersAsyncExecutor.shutdownNow();
+    }
+
     @Test
     void shouldContainOwnerName_dedicatedAccessWithAllAccountsOwnerName_shouldReturnTrue() {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
@@ -311,6 +330,76 @@ class OwnerNameServiceTest {
         verify(accountRestClient).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
     }
 
+    @Test
+    void getAccountOwnerNames_repeatedResourceId_shouldRequestLedgersOnce() {
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))));
+
+        Map<String, String> ownerNames = ownerNameService.getAccountOwnerNames(Arrays.asList(RESOURCE_ID, RESOURCE_ID));
+
+        assertEquals(Collections.singletonMap(RESOURCE_ID, ACCOUNT_OWNER_NAME), ownerNames);
+        verify(accountRestClient, times(1)).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
+        verifyNoInteractions(authRequestInterceptor);
+    }
+
+    @Test
+    void getAccountOwnerNames_severalAccounts_shouldResolveConcurrentlyWithCallerToken() {
+        List<String> lookupTokens = new CopyOnWriteArrayList<>();
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenAnswer(invocation -> {
+                    lookupTokens.add(authRequestInterceptor.getAccessToken());
+                    return ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME)));
+                });
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT))
+                .thenAnswer(invocation -> {
+                    lookupTokens.add(authRequestInterceptor.getAccessToken());
+                    return ResponseEntity.ok(Collections.emptyList());
+                });
+        authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
+
+        try {
+            Map<String, String> ownerNames = ownerNameService.getAccountOwnerNames(Arrays.asList(RESOURCE_ID, RESOURCE_ID_SECOND_ACCOUNT, RESOURCE_ID));
+
+            assertEquals(2, ownerNames.size());
+            assertEquals(ACCOUNT_OWNER_NAME, ownerNames.get(RESOURCE_ID));
+            assertTrue(ownerNames.containsKey(RESOURCE_ID_SECOND_ACCOUNT));
+            assertNull(ownerNames.get(RESOURCE_ID_SECOND_ACCOUNT));
+            verify(accountRestClient, times(1)).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
+            verify(accountRestClient, times(1)).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT);
+            assertEquals(Arrays.asList(ACCESS_TOKEN, ACCESS_TOKEN), lookupTokens);
+            assertEquals(ACCESS_TOKEN, authRequestInterceptor.getAccessToken());
+        } finally {
+            authRequestInterceptor.setAccessToken(null);
+        }
+    }
+
+    @Test
+    void getAccountOwnerNames_afterLookup_shouldNotLeaveTokenOnLookupThreads() throws Exception {
+        when(accountRestClient.getAdditionalAccountInfo(eq(AccountIdentifierTypeTO.ACCOUNT_ID), anyString()))
+                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
+
+        try {
+            ownerNameService.getAccountOwnerNames(Arrays.asList(RESOURCE_ID, RESOURCE_ID_SECOND_ACCOUNT));
+
+            assertNull(ledgersAsyncExecutor.submit(authRequestInterceptor::getAccessToken).get());
+        } finally {
+            authRequestInterceptor.setAccessToken(null);
+        }
+    }
+
+    @Test
+    void getAccountOwnerNames_failedLookup_shouldSkipLookupsNotStarted() {
+        FeignException feignException = mock(FeignException.class);
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID)).thenThrow(feignException);
+
+        FeignException actual = assertThrows(FeignException.class,
+                                             () -> ownerNameService.getAccountOwnerNames(Arrays.asList(RESOURCE_ID, RESOURCE_ID_SECOND_ACCOUNT)));
+
+        assertSame(feignException, actual);
+        verify(accountRestClient, never()).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT);
+    }
+
     @NotNull
     private AdditionalAccountInformationTO buildAdditionalAccountInformationTO(String ownerName) {
         AdditionalAccountInformationTO additionalAccountInformationTO = new AdditionalAccountInformationTO();
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionDeltaServiceTest {
+    private static final String CONSENT_ID = "consent ID";
+    private static final String RESOURCE_ID = "resource ID";
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 3, 1);
+    private static final LocalDate SECOND_DAY = LocalDate.of(2023, 3, 2);
+
+    private final TransactionDeltaService transactionDeltaService = new TransactionDeltaService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionDeltaService, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(transactionDeltaService, "maxSize", 10);
+    }
+
+    @Test
+    void isDeltaRequested() {
+        assertTrue(TransactionDeltaService.isDeltaRequested("ref", null));
+        assertTrue(TransactionDeltaService.isDeltaRequested(null, true));
+        assertFalse(TransactionDeltaService.isDeltaRequested(" ", false));
+    }
+
+    @Test
+    void deltaList_shouldReturnOnlyNotDeliveredTransactions() {
+        transactionDeltaService.remember(CONSENT_ID, RESOURCE_ID, Arrays.asList(transaction("1", FIRST_DAY), transaction("2", SECOND_DAY)));
+
+        List<TransactionTO> transactions = transactionDeltaService.getNewTransactions(CONSENT_ID, RESOURCE_ID, null, true,
+                                                                                      Arrays.asList(transaction("2", SECOND_DAY), transaction("3", SECOND_DAY),
+                                                                                                    transaction("4", SECOND_DAY.plusDays(1))));
+
+        assertEquals(Optional.of(SECOND_DAY), transactionDeltaService.getDateFrom(CONSENT_ID, RESOURCE_ID, null, true));
+        assertEquals(Arrays.asList("3", "4"), references(transactions));
+    }
+
+    @Test
+    void deltaList_noCheckpoint_shouldReturnAllTransactions() {
+        List<TransactionTO> allTransactions = Arrays.asList(transaction("1", FIRST_DAY), transaction("2", SECOND_DAY));
+
+        assertEquals(Optional.empty(), transactionDeltaService.getDateFrom(CONSENT_ID, RESOURCE_ID, null, true));
+        assertEquals(allTransactions, transactionDeltaService.getNewTransactions(CONSENT_ID, RESOURCE_ID, null, true, allTransactions));
+    }
+
+    @Test
+    void entryReferenceFrom_unknownToCheckpoint_shouldFilterByReferencedTransaction() {
+        List<TransactionTO> transactions = transactionDeltaService.getNewTransactions(CONSENT_ID, RESOURCE_ID, "2", null,
+                                                                                      Arrays.asList(transaction("1", FIRST_DAY), transaction("2", SECOND_DAY),
+                                                                                                    transaction("3", SECOND_DAY.plusDays(1))));
+
+        assertEquals(Optional.empty(), transactionDeltaService.getDateFrom(CONSENT_ID, RESOURCE_ID, "2", null));
+        assertEquals(Collections.singletonList("3"), references(transactions));
+    }
+
+    @Test
+    void remember_olderTransactions_shouldKeepLatestCheckpoint() {
+        transactionDeltaService.remember(CONSENT_ID, RESOURCE_ID, Collections.singletonList(transaction("2", SECOND_DAY)));
+        transactionDeltaService.remember(CONSENT_ID, RESOURCE_ID, Collections.singletonList(transaction("1", FIRST_DAY)));
+
+        assertEquals(Optional.of(SECOND_DAY), transactionDeltaService.getDateFrom(CONSENT_ID, RESOURCE_ID, "2", null));
+        assertEquals(1, transactionDeltaService.size());
+    }
+
+    @Test
+    void remember_zeroTtl_shouldNotKeepCheckpoint() {
+        ReflectionTestUtils.setField(transactionDeltaService, "ttlSeconds", 0L);
+
+        transactionDeltaService.remember(CONSENT_ID, RESOURCE_ID, Collections.singletonList(transaction("1", FIRST_DAY)));
+
+        assertEquals(0, transactionDeltaService.size());
+    }
+
+    private static TransactionTO transaction(String entryReference, LocalDate bookingDate) {
+        TransactionTO transaction = new TransactionTO();
+        transaction.setEntryReference(entryReference);
+        transaction.setBookingDate(bookingDate);
+        return transaction;
+    }
+
+    private static List<String> references(List<TransactionTO> transactions) {
+        return transactions.stream()
+                       .map(TransactionTO::getEntryReference)
+                       .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestAsyncClient;
+import de.adorsys.ledgers.util.domain.CustomPageImpl;
+import feign.FeignException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPagePrefetcherTest {
+    private static final String CONSENT_ID = "consent ID";
+    private static final String RESOURCE_ID = "resource ID";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final LocalDate DATE_FROM = LocalDate.of(2023, 1, 1);
+    private static final LocalDate DATE_TO = LocalDate.of(2023, 6, 30);
+    private static final int SIZE = 20;
+
+    @Mock
+    private AccountRestAsyncClient accountRestAsyncClient;
+    @InjectMocks
+    private TransactionPagePrefetcher transactionPagePrefetcher;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "enabled", true);
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "maxSize", 10);
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "maxTransactions", 100);
+    }
+
+    @Test
+    void pageServed_sequentialPages_shouldPrefetchNextPage() {
+        ResponseEntity<CustomPageImpl<TransactionTO>> nextPage = ResponseEntity.ok(new CustomPageImpl<>());
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE))
+                .thenReturn(CompletableFuture.completedFuture(nextPage));
+
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, false);
+
+        assertSame(nextPage, transactionPagePrefetcher.getPrefetchedPage(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE));
+        assertNull(transactionPagePrefetcher.getPrefetchedPage(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE));
+    }
+
+    @Test
+    void pageServed_randomAccess_shouldNotPrefetch() {
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 5, SIZE, false);
+
+        assertNull(transactionPagePrefetcher.getPrefetchedPage(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO, 6, SIZE));
+        verifyNoInteractions(accountRestAsyncClient);
+    }
+
+    @Test
+    void pageServed_lastPage_shouldNotPrefetch() {
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, true);
+
+        verifyNoInteractions(accountRestAsyncClient);
+    }
+
+    @Test
+    void getPrefetchedPage_failedPrefetch_shouldReturnNull() {
+        CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> failedPrefetch = new CompletableFuture<>();
+        failedPrefetch.completeExceptionally(mock(FeignException.class));
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE)).thenReturn(failedPrefetch);
+
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, false);
+
+        assertNull(transactionPagePrefetcher.getPrefetchedPage(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE));
+    }
+
+    @Test
+    void pageServed_transactionLimitReached_shouldNotPrefetchUntilPageTaken() {
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "maxTransactions", SIZE);
+        String otherResourceId = "other resource ID";
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(new CustomPageImpl<>())));
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, otherResourceId, DATE_FROM, DATE_TO, 3, SIZE))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(new CustomPageImpl<>())));
+
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, otherResourceId, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, otherResourceId, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, false);
+
+        assertEquals(SIZE, transactionPagePrefetcher.getPrefetchedTransactions());
+        assertNull(transactionPagePrefetcher.getPrefetchedPage(CONSENT_ID, otherResourceId, DATE_FROM, DATE_TO, 2, SIZE));
+        assertNotNull(transactionPagePrefetcher.getPrefetchedPage(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE));
+        assertEquals(0, transactionPagePrefetcher.getPrefetchedTransactions());
+
+        transactionPagePrefetcher.pageServed(CONSENT_ID, otherResourceId, ACCESS_TOKEN, DATE_FROM, DATE_TO, 2, SIZE, false);
+
+        assertNotNull(transactionPagePrefetcher.getPrefetchedPage(CONSENT_ID, otherResourceId, DATE_FROM, DATE_TO, 3, SIZE));
+    }
+
+    @Test
+    void pageServed_pageLargerThanLimit_shouldNotPrefetch() {
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "maxTransactions", SIZE - 1);
+
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, false);
+
+        assertEquals(0, transactionPagePrefetcher.getPrefetchedTransactions());
+        verifyNoInteractions(accountRestAsyncClient);
+    }
+
+    @Test
+    void pageServed_evictedState_shouldReleaseItsTransactions() {
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "maxSize", 1);
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, 2, SIZE))
+                .thenReturn(new CompletableFuture<>());
+
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, "other resource ID", ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+
+        assertEquals(1, transactionPagePrefetcher.size());
+        assertEquals(0, transactionPagePrefetcher.getPrefetchedTransactions());
+    }
+
+    @Test
+    void disabled_shouldNotTrackPages() {
+        ReflectionTestUtils.setField(transactionPagePrefetcher, "enabled", false);
+
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 0, SIZE, false);
+        transactionPagePrefetcher.pageServed(CONSENT_ID, RESOURCE_ID, ACCESS_TOKEN, DATE_FROM, DATE_TO, 1, SIZE, false);
+
+        assertEquals(0, transactionPagePrefetcher.size());
+        verifyNoInteractions(accountRestAsyncClient);
+    }
+}
@@ -16,26 +16,49 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.file;
 
-import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileManagementService;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.DownloadFileStatus;
 import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileManagementServiceSimple;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TransactionsFileManagementServiceSimpleTest {
-    private final FileManagementService fileManagementService = new FileManagementServiceSimple();
+    private final FileManagementServiceSimple fileManagementService = new FileManagementServiceSimple();
 
-    @Test
-    void allMethodsFlow() throws IOException, InterruptedException {
+    @BeforeEach
+    void setUp() {
         ReflectionTestUtils.setField(fileManagementService, "configurationPath", "/tmp/XS2A");
+        ReflectionTestUtils.setField(fileManagementService, "readyTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(fileManagementService, "fileExpirySeconds", 600L);
+        fileManagementService.startExecutors();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileManagementService.shutdownExecutors();
+    }
+
+    @Test
+    void allMethodsFlow() throws IOException {
         String inputFileName = "json/spi/impl/spi-transactions.json";
         String outputFileName = "transactions.json";
         String path = getClass().getClassLoader().getResource(inputFileName).getPath();
@@ -45,8 +68,7 @@ class TransactionsFileManagementServiceSimpleTest {
         //Save file and build download link
         String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(resource, outputFileName);
         assertNotNull(downloadLink);
-        //Delay to ensure the file is written
-        Thread.sleep(100);
+        assertEquals(DownloadFileStatus.READY, fileManagementService.awaitFileReady(downloadLink));
 
         //Get file by download link
         Resource fileByDownloadLink = fileManagementService.getFileByDownloadLink(downloadLink);
@@ -56,4 +78,158 @@ class TransactionsFileManagementServiceSimpleTest {
         //Delete file success (file exist)
         Assertions.assertDoesNotThrow(() -> fileManagementService.deleteFileByDownloadLink(downloadLink));
     }
+
+    @Test
+    void saveFileAndBuildDownloadLink_contentWriter() throws IOException {
+        byte[] bytes = "[{\"transactionId\":\"1\"}]".getBytes(StandardCharsets.UTF_8);
+
+        String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(outputStream -> outputStream.write(bytes), "transactions.json");
+        assertNotNull(downloadLink);
+        assertEquals(DownloadFileStatus.READY, fileManagementService.awaitFileReady(downloadLink));
+
+        Resource fileByDownloadLink = fileManagementService.getFileByDownloadLink(downloadLink);
+        assertArrayEquals(bytes, fileByDownloadLink.getInputStream().readAllBytes());
+
+        Assertions.assertDoesNotThrow(() -> fileManagementService.deleteFileByDownloadLink(downloadLink));
+    }
+
+    @Test
+    void openFileByDownloadLink_shouldDeleteFileOnClose() throws IOException {
+        byte[] bytes = "[{\"transactionId\":\"1\"}]".getBytes(StandardCharsets.UTF_8);
+        String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(outputStream -> outputStream.write(bytes), "transactions.json");
+        assertEquals(DownloadFileStatus.READY, fileManagementService.awaitFileReady(downloadLink));
+
+        try (InputStream inputStream = fileManagementService.openFileByDownloadLink(downloadLink)) {
+            assertArrayEquals(bytes, inputStream.readAllBytes());
+        }
+
+        assertFalse(Files.exists(Path.of(downloadLink)));
+        assertFalse(Files.exists(Path.of(downloadLink).getParent()));
+    }
+
+    @Test
+    void startExecutors_shouldDeleteOrphanedFiles() throws IOException {
+        Path orphanedDirectory = createDownloadDirectory("orphaned", "transactions.json", System.currentTimeMillis() - 3_600_000L);
+        fileManagementService.shutdownExecutors();
+
+        fileManagementService.startExecutors();
+
+        assertFalse(Files.exists(orphanedDirectory));
+    }
+
+    @Test
+    void startExecutors_notExpiredFile_shouldKeepFile() throws IOException {
+        Path validDirectory = createDownloadDirectory("valid", "transactions.json", System.currentTimeMillis() - 300_000L);
+        fileManagementService.shutdownExecutors();
+
+        fileManagementService.startExecutors();
+
+        assertTrue(Files.exists(validDirectory.resolve("transactions.json")));
+        FileUtils.deleteQuietly(validDirectory.toFile());
+    }
+
+    @Test
+    void startExecutors_fileBeingWritten_shouldKeepFile() throws IOException {
+        Path writingDirectory = createDownloadDirectory("writing", "transactions.json.part", System.currentTimeMillis());
+        assertTrue(writingDirectory.toFile().setLastModified(System.currentTimeMillis() - 3_600_000L));
+        fileManagementService.shutdownExecutors();
+
+        fileManagementService.startExecutors();
+
+        assertTrue(Files.exists(writingDirectory.resolve("transactions.json.part")));
+        FileUtils.deleteQuietly(writingDirectory.toFile());
+    }
+
+    private Path createDownloadDirectory(String prefix, String filename, long lastModified) throws IOException {
+        Path directory = Files.createTempDirectory(Path.of("/tmp/XS2A"), prefix);
+        Path file = directory.resolve(filename);
+        Files.writeString(file, "[]");
+        assertTrue(file.toFile().setLastModified(lastModified));
+        assertTrue(directory.toFile().setLastModified(lastModified));
+        return directory;
+    }
+
+    @Test
+    void awaitFileReady_writingFailed() throws IOException {
+        String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(outputStream -> {
+            throw new IOException("Writing failed");
+        }, "transactions.json");
+
+        assertEquals(DownloadFileStatus.FAILED, fileManagementService.awaitFileReady(downloadLink));
+        assertFalse(Files.exists(Path.of(downloadLink)));
+    }
+
+    @Test
+    void awaitFileReady_writerThrowsRuntimeException() throws IOException {
+        String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(outputStream -> {
+            throw new IllegalStateException("Ledgers is not available");
+        }, "transactions.json");
+
+        assertEquals(DownloadFileStatus.FAILED, fileManagementService.awaitFileReady(downloadLink));
+        assertFalse(Files.exists(Path.of(downloadLink)));
+    }
+
+    @Test
+    void saveFileAndBuildDownloadLink_neverDownloaded_shouldExpire() throws Exception {
+        ReflectionTestUtils.setField(fileManagementService, "fileExpirySeconds", 1L);
+        String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(outputStream -> outputStream.write('1'), "transactions.json");
+        assertEquals(DownloadFileStatus.READY, fileManagementService.awaitFileReady(downloadLink));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Files.exists(Path.of(downloadLink).getParent()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertFalse(Files.exists(Path.of(downloadLink).getParent()));
+        assertEquals(DownloadFileStatus.EXPIRED, fileManagementService.awaitFileReady(downloadLink));
+    }
+
+    @Test
+    void awaitFileReady_unknownFile() {
+        assertEquals(DownloadFileStatus.EXPIRED, fileManagementService.awaitFileReady("/tmp/XS2A/unknown/transactions.json"));
+    }
+
+    @Test
+    void getFileStatus_shouldNotWaitForWriting() throws Exception {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch writeReleased = new CountDownLatch(1);
+        String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(outputStream -> {
+            writeStarted.countDown();
+            try {
+                writeReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            outputStream.write('1');
+        }, "transactions.json");
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        assertEquals(DownloadFileStatus.PENDING, fileManagementService.getFileStatus(downloadLink));
+
+        writeReleased.countDown();
+        assertEquals(DownloadFileStatus.READY, fileManagementService.awaitFileReady(downloadLink));
+        assertEquals(DownloadFileStatus.READY, fileManagementService.getFileStatus(downloadLink));
+
+        fileManagementService.openFileByDownloadLink(downloadLink).close();
+        assertEquals(DownloadFileStatus.EXPIRED, fileManagementService.getFileStatus(downloadLink));
+    }
+
+    @Test
+    void compressionEnabled_shouldReadDecompressedContent() throws IOException {
+        ReflectionTestUtils.setField(fileManagementService, "compressionEnabled", true);
+        byte[] bytes = "[{\"transactionId\":\"1\"},{\"transactionId\":\"2\"}]".getBytes(StandardCharsets.UTF_8);
+
+        String downloadLink = fileManagementService.saveFileAndBuildDownloadLink(outputStream -> outputStream.write(bytes), "transactions.json");
+        assertEquals(DownloadFileStatus.READY, fileManagementService.awaitFileReady(downloadLink));
+
+        Resource fileByDownloadLink = fileManagementService.getFileByDownloadLink(downloadLink);
+        assertEquals("transactions.json", fileByDownloadLink.getFilename());
+        assertEquals(bytes.length, fileByDownloadLink.contentLength());
+        assertArrayEquals(bytes, fileByDownloadLink.getInputStream().readAllBytes());
+
+        try (InputStream inputStream = fileManagementService.openFileByDownloadLink(downloadLink)) {
+            assertArrayEquals(bytes, inputStream.readAllBytes());
+        }
+        assertFalse(Files.exists(Path.of(downloadLink)));
+    }
 }
@@ -17,20 +17,28 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionDeltaService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionPagePrefetcher;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
 import de.adorsys.aspsp.xs2a.connector.spi.file.exception.FileManagementException;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.DownloadFileStatus;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileContentWriter;
 import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileManagementService;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.service.TransactionExportService;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.service.TransactionLinksService;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.aspsp.xs2a.util.TestSpiDataProvider;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountBalanceTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
 import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.um.AccessTokenTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.AccountRestAsyncClient;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.util.domain.CustomPageImpl;
@@ -55,17 +63,19 @@ import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
 import java.nio.charset.Charset;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Currency;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -103,6 +113,8 @@ class AccountSpiImplTest {
 
     @Mock
     private AccountRestClient accountRestClient;
+    @Mock
+    private AccountRestAsyncClient accountRestAsyncClient;
     @Spy
     private final LedgersSpiAccountMapper accountMapper = new LedgersSpiAccountMapperImpl();
     @Mock
@@ -118,6 +130,14 @@ class AccountSpiImplTest {
     @Mock
     private OwnerNameService ownerNameService;
     @Mock
+    private AccountListCacheService accountListCacheService;
+    @Mock
+    private TransactionDeltaService transactionDeltaService;
+    @Mock
+    private TransactionPagePrefetcher transactionPagePrefetcher;
+    @Mock
+    private TransactionExportService transactionExportService;
+    @Mock
     private TransactionLinksService transactionLinksService;
     @Mock
     private Xs2aObjectMapper xs2aObjectMapper;
@@ -150,25 +170,127 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
-        when(xs2aObjectMapper.writeValueAsBytes(anyList())).thenReturn(BYTES);
-        when(fileManagementService.saveFileAndBuildDownloadLink(new ByteArrayResource(BYTES), null)).thenReturn(TRANSACTIONS_FILEPATH);
+        when(fileManagementService.saveFileAndBuildDownloadLink(any(FileContentWriter.class), isNull())).thenReturn(TRANSACTIONS_FILEPATH);
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
         verify(accountRestClient, times(1)).getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestAsyncClient, times(1)).getBalances("access_token", RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
 
         assertEquals(MediaType.APPLICATION_XML_VALUE, actualResponse.getPayload().getResponseContentType());
     }
 
+    @Test
+    void requestTransactionsForAccount_fileFormatFirstPage_shouldExportWholeWindow() throws JsonProcessingException, FileManagementException {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(transactionExportService.isShardedExport(DATE_FROM, DATE_TO)).thenReturn(true);
+        when(transactionExportService.getExportDownloadLink(eq(spiAccountConsent.getId()), eq("access_token"), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), any()))
+                .thenReturn(TRANSACTIONS_FILEPATH);
+
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        assertEquals(TRANSACTIONS_FILEPATH, actualResponse.getPayload().getDownloadId());
+        verify(fileManagementService, never()).saveFileAndBuildDownloadLink(any(FileContentWriter.class), any());
+    }
+
+    @Test
+    void requestTransactionsForAccount_deltaList_shouldNotBuildLinks() throws JsonProcessingException, FileManagementException {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(transactionDeltaService.getDateFrom(spiAccountConsent.getId(), RESOURCE_ID, null, true)).thenReturn(Optional.empty());
+        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
+        when(fileManagementService.saveFileAndBuildDownloadLink(any(FileContentWriter.class), isNull())).thenReturn(TRANSACTIONS_FILEPATH);
+
+        SpiTransactionReportParameters parameters = new SpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE, true, DATE_FROM, DATE_TO,
+                                                                                       SpiBookingStatus.ALL, null, true, PAGE, SIZE);
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, parameters,
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        assertTrue(actualResponse.getErrors().isEmpty());
+        verify(transactionLinksService, never()).isCursorEnabled();
+        verify(transactionExportService, never()).isShardedExport(any(), any());
+        verify(transactionDeltaService).remember(eq(spiAccountConsent.getId()), eq(RESOURCE_ID), any());
+    }
+
+    @Test
+    void requestTransactionsForAccount_deltaList_shouldFilterAllPagesOfWindow() throws JsonProcessingException, FileManagementException {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(transactionDeltaService.getDateFrom(spiAccountConsent.getId(), RESOURCE_ID, null, true)).thenReturn(Optional.empty());
+        TransactionTO nextTransaction = jsonReader.getObjectFromFile("json/mappers/transaction-to.json", TransactionTO.class);
+        nextTransaction.setTransactionId("next transaction ID");
+        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, 0, SIZE)).thenReturn(ResponseEntity.ok(buildPage(transactionTO, false)));
+        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, 1, SIZE)).thenReturn(ResponseEntity.ok(buildPage(nextTransaction, true)));
+        when(transactionDeltaService.getNewTransactions(spiAccountConsent.getId(), RESOURCE_ID, null, true, Arrays.asList(transactionTO, nextTransaction)))
+                .thenReturn(Collections.singletonList(nextTransaction));
+        when(fileManagementService.saveFileAndBuildDownloadLink(any(FileContentWriter.class), isNull())).thenReturn(TRANSACTIONS_FILEPATH);
+
+        SpiTransactionReportParameters parameters = new SpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE, false, DATE_FROM, DATE_TO,
+                                                                                       SpiBookingStatus.BOOKED, null, true, 1, SIZE);
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, parameters,
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        List<SpiTransaction> transactions = actualResponse.getPayload().getTransactions();
+        assertEquals(1, transactions.size());
+        assertEquals("next transaction ID", transactions.get(0).getTransactionId());
+        verify(transactionDeltaService).remember(spiAccountConsent.getId(), RESOURCE_ID, Collections.singletonList(nextTransaction));
+        verifyNoInteractions(transactionPagePrefetcher);
+    }
+
+    @Test
+    void requestTransactionsForAccount_notDeltaReport_shouldNotMoveCheckpoint() throws JsonProcessingException, FileManagementException {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(buildPage(transactionTO, true)));
+        when(fileManagementService.saveFileAndBuildDownloadLink(any(FileContentWriter.class), isNull())).thenReturn(TRANSACTIONS_FILEPATH);
+
+        SpiTransactionReportParameters parameters = new SpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE, false, DATE_FROM, DATE_TO,
+                                                                                       SpiBookingStatus.BOOKED, null, null, PAGE, SIZE);
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, parameters,
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        assertEquals(1, actualResponse.getPayload().getTransactions().size());
+        verify(transactionDeltaService, never()).remember(any(), any(), any());
+    }
+
+    @Test
+    void requestTransactionsForAccount_invalidCursor_shouldReturnFormatError() {
+        when(transactionLinksService.getCursor(RESOURCE_ID)).thenReturn(Optional.empty());
+        when(transactionLinksService.isCursorRequested()).thenReturn(true);
+
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE),
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        assertEquals(SpiMessageErrorCode.FORMAT_ERROR, actualResponse.getErrors().get(0).getErrorCode());
+        assertNull(actualResponse.getPayload());
+        verifyNoInteractions(accountRestClient);
+        verifyNoInteractions(aspspConsentDataProvider);
+    }
+
     @Test
     void requestTransactionsForAccount_InformationBookingStatus() {
         //When
@@ -191,21 +313,20 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(xs2aObjectMapper.writeValueAsBytes(anyList())).thenReturn(BYTES);
-        when(fileManagementService.saveFileAndBuildDownloadLink(new ByteArrayResource(BYTES), null)).thenReturn(TRANSACTIONS_FILEPATH);
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
+        when(fileManagementService.saveFileAndBuildDownloadLink(any(FileContentWriter.class), isNull())).thenReturn(TRANSACTIONS_FILEPATH);
 
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(null),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
         verify(accountRestClient, times(1)).getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestAsyncClient, times(1)).getBalances("access_token", RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
+        verify(transactionExportService, never()).isShardedExport(any(), any());
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -217,20 +338,18 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(xs2aObjectMapper.writeValueAsBytes(anyList())).thenReturn(BYTES);
-        when(fileManagementService.saveFileAndBuildDownloadLink(new ByteArrayResource(BYTES), null)).thenReturn(TRANSACTIONS_FILEPATH);
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
+        when(fileManagementService.saveFileAndBuildDownloadLink(any(FileContentWriter.class), isNull())).thenReturn(TRANSACTIONS_FILEPATH);
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters("*/*"),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
         verify(accountRestClient, times(1)).getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE);
-        verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(accountRestAsyncClient, times(1)).getBalances("access_token", RESOURCE_ID);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -242,23 +361,42 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesCall = new CompletableFuture<>();
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(balancesCall);
+        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenThrow(getFeignException());
 
-        when(tokenService.store(scaResponseTO)).thenThrow(getFeignException());
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
+
+        assertFalse(actualResponse.getErrors().isEmpty());
+        assertNull(actualResponse.getPayload());
+        verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
+        verify(tokenService, times(1)).response(BYTES);
+        verify(authRequestInterceptor, times(1)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
+        assertTrue(balancesCall.isCancelled());
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
+    }
+
+    @Test
+    void requestTransactionsForAccount_balancesFailed() {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
+        CompletableFuture<ResponseEntity<List<AccountBalanceTO>>> balancesCall = new CompletableFuture<>();
+        balancesCall.completeExceptionally(getFeignException());
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(balancesCall);
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
         assertFalse(actualResponse.getErrors().isEmpty());
         assertNull(actualResponse.getPayload());
-        verify(aspspConsentDataProvider, times(2)).loadAspspConsentData();
-        verify(tokenService, times(2)).response(BYTES);
-        verify(authRequestInterceptor, times(2)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
-        verify(accountRestClient, times(1)).getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
     }
 
     @Test
@@ -268,24 +406,23 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE)).thenReturn(ResponseEntity.ok(new CustomPageImpl<>()));
-        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
-        when(xs2aObjectMapper.writeValueAsBytes(anyList())).thenReturn(BYTES);
+        when(accountRestAsyncClient.getBalances("access_token", RESOURCE_ID)).thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(Collections.emptyList())));
 
-        when(fileManagementService.saveFileAndBuildDownloadLink(new ByteArrayResource(BYTES), null)).thenThrow(getFileManagementException("FileManagementException"));
+        when(fileManagementService.saveFileAndBuildDownloadLink(any(FileContentWriter.class), isNull())).thenThrow(getFileManagementException("FileManagementException"));
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
         assertTrue(actualResponse.getErrors().isEmpty());
         assertTrue(actualResponse.getPayload().getDownloadId().isEmpty());
-        verify(aspspConsentDataProvider, times(2)).loadAspspConsentData();
-        verify(tokenService, times(2)).response(BYTES);
-        verify(authRequestInterceptor, times(2)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
+        verify(tokenService, times(1)).response(BYTES);
+        verify(authRequestInterceptor, times(1)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
         verify(accountRestClient, times(1)).getTransactionByDatesPaged(RESOURCE_ID, DATE_FROM, DATE_TO, PAGE, SIZE);
-        verify(tokenService, times(2)).store(scaResponseTO);
+        verify(tokenService, never()).store(any());
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
     }
 
     @Test
@@ -295,12 +432,11 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
                                                                                             spiAccountConsent, aspspConsentDataProvider);
@@ -317,12 +453,11 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, true,
                                                                                             spiAccountConsent, aspspConsentDataProvider);
@@ -339,10 +474,9 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(accountDetails_1)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Collections.singletonList(accountDetails_1));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, true,
                                                                                             spiAccountConsentWithOwnerName, aspspConsentDataProvider);
@@ -363,9 +497,8 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(accountDetailsTO)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Collections.singletonList(accountDetailsTO));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, true,
                                                                                             spiAccountConsentGlobal, aspspConsentDataProvider);
@@ -397,12 +530,11 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent-no-currency.json", SpiAccountConsent.class);
 
@@ -423,12 +555,11 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
                                                                                             spiAccountConsent, aspspConsentDataProvider);
@@ -452,16 +583,12 @@ class AccountSpiImplTest {
         List<AccountDetailsTO> accountDetailsTOList = accountAccess.getAccounts().stream()
                                                               .map(account -> buildAccountDetailsTO(account.getIban(), account.getResourceId()))
                                                               .collect(Collectors.toList());
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(accountDetailsTOList);
 
-        SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
-        SpiAccountDetails spiAccountDetailsSecondAccount = buildSpiAccountDetails(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT);
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsSecondAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT, ACCOUNT_OWNER_NAME_SECOND_ACCOUNT));
+        when(ownerNameService.getAccountOwnerNames(Arrays.asList(RESOURCE_ID, RESOURCE_ID_SECOND_ACCOUNT)))
+                .thenReturn(Map.of(RESOURCE_ID, ACCOUNT_OWNER_NAME, RESOURCE_ID_SECOND_ACCOUNT, ACCOUNT_OWNER_NAME_SECOND_ACCOUNT));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -488,7 +615,7 @@ class AccountSpiImplTest {
                                                               .collect(Collectors.toList());
         when(tokenService.response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes())).thenReturn(testSca);
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(accountDetailsTOList);
 
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
                 .thenReturn(false);
@@ -505,6 +632,7 @@ class AccountSpiImplTest {
         assertNull(spiAccountDetails.get(0).getOwnerName());
         assertNull(spiAccountDetails.get(1).getOwnerName());
         verify(ownerNameService, never()).enrichAccountDetailsWithOwnerName(any());
+        verify(ownerNameService, never()).getAccountOwnerNames(any());
     }
 
     @Test
@@ -522,14 +650,12 @@ class AccountSpiImplTest {
                                                               .collect(Collectors.toList());
         when(tokenService.response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes())).thenReturn(testSca);
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(accountDetailsTOList);
 
-        SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
-        SpiAccountDetails spiAccountDetailsSecondAccount = buildSpiAccountDetails(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT);
+        when(ownerNameService.getAccountOwnerNames(Collections.singletonList(RESOURCE_ID)))
+                .thenReturn(Map.of(RESOURCE_ID, ACCOUNT_OWNER_NAME));
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess))
                 .thenReturn(false);
 
@@ -542,23 +668,22 @@ class AccountSpiImplTest {
         assertNotNull(spiAccountDetails);
         assertNotNull(spiAccountDetails.get(0).getOwnerName());
         assertNull(spiAccountDetails.get(1).getOwnerName());
-        verify(ownerNameService, never()).enrichAccountDetailsWithOwnerName(spiAccountDetailsSecondAccount);
+        verify(ownerNameService, never()).getAccountOwnerNames(Arrays.asList(RESOURCE_ID, RESOURCE_ID_SECOND_ACCOUNT));
     }
 
     @Test
     void requestAccountList_availableAccountsConsent_withOwnerName() {
         //Given
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-available-accounts-owner-name.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
-        SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
         when(tokenService.response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes())).thenReturn(testSca);
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.getAccountOwnerNames(Collections.singletonList(RESOURCE_ID)))
+                .thenReturn(Map.of(RESOURCE_ID, ACCOUNT_OWNER_NAME));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -573,17 +698,16 @@ class AccountSpiImplTest {
     @Test
     void requestAccountList_availableAccountsWithBalanceConsent_withOwnerName() {
         //Given
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         when(tokenService.response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes())).thenReturn(testSca);
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-available-accounts-balance-owner-name.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
-        SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.getAccountOwnerNames(Collections.singletonList(RESOURCE_ID)))
+                .thenReturn(Map.of(RESOURCE_ID, ACCOUNT_OWNER_NAME));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -598,17 +722,16 @@ class AccountSpiImplTest {
     @Test
     void requestAccountList_globalConsent_withOwnerName() {
         //Given
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         when(tokenService.response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes())).thenReturn(testSca);
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-global-owner-name.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
-        SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
         when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.getAccountOwnerNames(Collections.singletonList(RESOURCE_ID)))
+                .thenReturn(Map.of(RESOURCE_ID, ACCOUNT_OWNER_NAME));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -669,7 +792,7 @@ class AccountSpiImplTest {
     }
 
     private void verifyGetListOfAccounts() {
-        verify(accountRestClient).getListOfAccounts();
+        verify(accountListCacheService).getListOfAccounts();
         verify(tokenService).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
         verify(authRequestInterceptor).setAccessToken("access_token");
         verify(authRequestInterceptor).setAccessToken(null);
@@ -682,7 +805,6 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
@@ -692,10 +814,10 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, never()).store(any());
     }
 
     @Test
@@ -705,7 +827,6 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
         SpiResponse<SpiAccountDetails> actualResponse = accountSpi.requestAccountDetailForAccount(SPI_CONTEXT_DATA, false, accountReference,
@@ -714,10 +835,10 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, never()).store(any());
     }
 
     @Test
@@ -747,7 +868,6 @@ class AccountSpiImplTest {
         when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getTransactionById(accountReference.getResourceId(), TRANSACTION_ID)).thenReturn(ResponseEntity.ok(transactionTO));
 
         SpiResponse<SpiTransaction> actualResponse = accountSpi
@@ -756,10 +876,10 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
         verify(accountRestClient, times(1)).getTransactionById(accountReference.getResourceId(), TRANSACTION_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, never()).store(any());
     }
 
     @Test
@@ -785,7 +905,9 @@ class AccountSpiImplTest {
 
     @Test
     void requestTransactionsByDownloadLink_success() throws FileManagementException {
+        when(fileManagementService.awaitFileReady(DOWNLOAD_ID)).thenReturn(DownloadFileStatus.READY);
         when(fileManagementService.getFileByDownloadLink(DOWNLOAD_ID)).thenReturn(new ByteArrayResource(BYTES));
+        when(fileManagementService.openFileByDownloadLink(DOWNLOAD_ID)).thenReturn(new ByteArrayInputStream(BYTES));
 
         SpiResponse<SpiTransactionsDownloadResponse> actualResponse =
                 accountSpi.requestTransactionsByDownloadLink(SPI_CONTEXT_DATA, spiAccountConsent, DOWNLOAD_ID, aspspConsentDataProvider);
@@ -796,11 +918,8 @@ class AccountSpiImplTest {
     }
 
     @Test
-    void requestTransactionsByDownloadLink_blockedResource() throws FileManagementException {
-        File file = new File(TRANSACTIONS_FILEPATH);
-        file.setReadable(false);
-        FileSystemResource resource = new FileSystemResource(file);
-        when(fileManagementService.getFileByDownloadLink(DOWNLOAD_ID)).thenReturn(resource);
+    void requestTransactionsByDownloadLink_blockedResource() {
+        when(fileManagementService.awaitFileReady(DOWNLOAD_ID)).thenReturn(DownloadFileStatus.PENDING);
 
         SpiResponse<SpiTransactionsDownloadResponse> actualResponse =
                 accountSpi.requestTransactionsByDownloadLink(SPI_CONTEXT_DATA, spiAccountConsent, DOWNLOAD_ID, aspspConsentDataProvider);
@@ -813,6 +932,7 @@ class AccountSpiImplTest {
 
     @Test
     void requestTransactionsByDownloadLink_emptyFile() throws FileManagementException {
+        when(fileManagementService.awaitFileReady(DOWNLOAD_ID)).thenReturn(DownloadFileStatus.READY);
         ByteArrayResource resource = new ByteArrayResource("".getBytes());
         when(fileManagementService.getFileByDownloadLink(DOWNLOAD_ID)).thenReturn(resource);
 
@@ -826,8 +946,22 @@ class AccountSpiImplTest {
         verify(fileManagementService, never()).deleteFileByDownloadLink(DOWNLOAD_ID);
     }
 
+    @Test
+    void requestTransactionsByDownloadLink_failedFile() throws FileManagementException {
+        when(fileManagementService.awaitFileReady(DOWNLOAD_ID)).thenReturn(DownloadFileStatus.FAILED);
+
+        SpiResponse<SpiTransactionsDownloadResponse> actualResponse =
+                accountSpi.requestTransactionsByDownloadLink(SPI_CONTEXT_DATA, spiAccountConsent, DOWNLOAD_ID, aspspConsentDataProvider);
+
+        assertFalse(actualResponse.getErrors().isEmpty());
+        assertNull(actualResponse.getPayload());
+        assertEquals(SpiMessageErrorCode.RESOURCE_UNKNOWN_404, actualResponse.getErrors().get(0).getErrorCode());
+        verify(fileManagementService, never()).getFileByDownloadLink(DOWNLOAD_ID);
+    }
+
     @Test
     void requestTransactionsByDownloadLink_WithError() throws FileManagementException {
+        when(fileManagementService.awaitFileReady(DOWNLOAD_ID)).thenReturn(DownloadFileStatus.READY);
         when(fileManagementService.getFileByDownloadLink(DOWNLOAD_ID)).thenThrow(getFileManagementException(null));
 
         SpiResponse<SpiTransactionsDownloadResponse> actualResponse =
@@ -925,4 +1059,11 @@ class AccountSpiImplTest {
         sca.setBearerToken(token);
         return sca;
     }
+
+    private static CustomPageImpl<TransactionTO> buildPage(TransactionTO transaction, boolean lastPage) {
+        CustomPageImpl<TransactionTO> page = new CustomPageImpl<>();
+        page.setContent(Collections.singletonList(transaction));
+        page.setLastPage(lastPage);
+        return page;
+    }
 }
@@ -16,8 +16,8 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.TextNode;
 import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.um.AccessTokenTO;
@@ -45,13 +45,19 @@ class AspspConsentDataServiceTest {
 
     @Mock
     private ObjectMapper objectMapper;
+    @Mock
+    private ObjectReader objectReader;
+    @Mock
+    private ConsentDataCodec consentDataCodec;
 
     @Test
     void loginAttemptResponse() {
         // Given
         ObjectMapper objectMapper = new ObjectMapper();
+        ConsentDataCodec consentDataCodec = new ConsentDataCodec(objectMapper);
         aspspConsentDataService = new AspspConsentDataService(objectMapper, null,
-                                                              new LoginAttemptAspspConsentDataService(objectMapper));
+                                                              new LoginAttemptAspspConsentDataService(objectMapper, consentDataCodec),
+                                                              consentDataCodec);
         // When
         LoginAttemptAspspConsentDataService loginAttemptAspspConsentDataService = aspspConsentDataService.getLoginAttemptAspspConsentDataService();
 
@@ -73,17 +79,17 @@ class AspspConsentDataServiceTest {
     }
 
     @Test
-    void store_withouf_flag_success() throws JsonProcessingException {
+    void store_withouf_flag_success() throws IOException {
         // Given
         GlobalScaResponseTO scaResponseTO = getScaResponse();
-        when(objectMapper.writeValueAsBytes(scaResponseTO))
+        when(consentDataCodec.encode(scaResponseTO))
                 .thenReturn(STRING_TO_SERIALIZE.getBytes());
 
         // When
         byte[] actual = aspspConsentDataService.store(scaResponseTO);
 
         // Then
-        verify(objectMapper, times(1)).writeValueAsBytes(scaResponseTO);
+        verify(consentDataCodec, times(1)).encode(scaResponseTO);
         assertEquals(STRING_TO_SERIALIZE, new String(actual));
     }
 
@@ -98,11 +104,11 @@ class AspspConsentDataServiceTest {
     }
 
     @Test
-    void store_withouf_flag_fail_jackson() throws JsonProcessingException {
+    void store_withouf_flag_fail_jackson() throws IOException {
         // Given
         GlobalScaResponseTO scaResponseTO = getScaResponse();
 
-        when(objectMapper.writeValueAsBytes(scaResponseTO))
+        when(consentDataCodec.encode(scaResponseTO))
                 .thenAnswer(invocation -> {
                     throw new IOException();
                 });
@@ -114,24 +120,50 @@ class AspspConsentDataServiceTest {
     @Test
     void response_success() throws IOException {
         // Given
-        when(objectMapper.readTree(BYTES))
-                .thenReturn(new TextNode("data"));
-        when(objectMapper.readValue(BYTES, GlobalScaResponseTO.class))
+        TextNode jsonNode = new TextNode("data");
+        when(consentDataCodec.decode(BYTES))
+                .thenReturn(jsonNode);
+        when(objectMapper.readerFor(GlobalScaResponseTO.class))
+                .thenReturn(objectReader);
+        when(objectReader.readValue(jsonNode))
                 .thenReturn(getScaResponse());
         // When
         GlobalScaResponseTO actual = aspspConsentDataService.response(BYTES);
 
         // Then
         assertEquals(getScaResponse(), actual);
+        verify(objectMapper, never()).readValue(BYTES, GlobalScaResponseTO.class);
+    }
+
+    @Test
+    void response_severalCalls_shouldReuseObjectReader() throws IOException {
+        // Given
+        TextNode jsonNode = new TextNode("data");
+        when(consentDataCodec.decode(BYTES))
+                .thenReturn(jsonNode);
+        when(objectMapper.readerFor(GlobalScaResponseTO.class))
+                .thenReturn(objectReader);
+        when(objectReader.readValue(jsonNode))
+                .thenReturn(getScaResponse());
+        // When
+        aspspConsentDataService.response(BYTES);
+        aspspConsentDataService.response(BYTES);
+
+        // Then
+        verify(objectMapper, times(1)).readerFor(GlobalScaResponseTO.class);
+        verify(consentDataCodec, times(2)).decode(BYTES);
     }
 
     @Test
     void response_fail_jackson() throws IOException {
         // Given
-        when(objectMapper.readTree(BYTES))
-                .thenReturn(new TextNode("data"));
+        TextNode jsonNode = new TextNode("data");
+        when(consentDataCodec.decode(BYTES))
+                .thenReturn(jsonNode);
+        when(objectMapper.readerFor(GlobalScaResponseTO.class))
+                .thenReturn(objectReader);
 
-        when(objectMapper.readValue(BYTES, GlobalScaResponseTO.class))
+        when(objectReader.readValue(jsonNode))
                 .thenAnswer(invocation -> {
                     throw new IOException();
                 });
@@ -143,12 +175,15 @@ class AspspConsentDataServiceTest {
     @Test
     void response_fail_no_token() throws IOException {
         // Given
-        when(objectMapper.readTree(BYTES))
-                .thenReturn(new TextNode("data"));
+        TextNode jsonNode = new TextNode("data");
+        when(consentDataCodec.decode(BYTES))
+                .thenReturn(jsonNode);
+        when(objectMapper.readerFor(GlobalScaResponseTO.class))
+                .thenReturn(objectReader);
 
         GlobalScaResponseTO globalScaResponseTO = getScaResponse();
         globalScaResponseTO.setBearerToken(null);
-        when(objectMapper.readValue(BYTES, GlobalScaResponseTO.class))
+        when(objectReader.readValue(jsonNode))
                 .thenReturn(globalScaResponseTO);
 
         // Then
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
+import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingAspspConsentDataProviderTest {
+    private static final byte[] BYTES = "data".getBytes();
+    private static final byte[] UPDATED_BYTES = "updated data".getBytes();
+
+    @Mock
+    private SpiAspspConsentDataProvider aspspConsentDataProvider;
+    @Mock
+    private AspspConsentDataService consentDataService;
+
+    @Test
+    void of_alreadyWrapped_shouldReturnSameInstance() {
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
+
+        assertSame(consentData, CachingAspspConsentDataProvider.of(consentData, consentDataService));
+    }
+
+    @Test
+    void getScaResponse_severalCalls_shouldLoadAndDecodeOnce() {
+        GlobalScaResponseTO scaResponse = new GlobalScaResponseTO();
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(consentDataService.response(BYTES)).thenReturn(scaResponse);
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
+
+        assertSame(scaResponse, consentData.getScaResponse());
+        assertSame(scaResponse, CachingAspspConsentDataProvider.of(consentData, consentDataService).getScaResponse());
+        assertArrayEquals(BYTES, consentData.loadAspspConsentData());
+
+        verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
+        verify(consentDataService, times(1)).response(BYTES);
+    }
+
+    @Test
+    void flush_notChanged_shouldNotWrite() {
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(consentDataService.response(BYTES)).thenReturn(new GlobalScaResponseTO());
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
+        consentData.getScaResponse();
+
+        consentData.flush();
+
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
+        verify(consentDataService, never()).store(any());
+    }
+
+    @Test
+    void flush_scaResponseUpdatedTwice_shouldEncodeAndWriteOnce() {
+        GlobalScaResponseTO scaResponse = new GlobalScaResponseTO();
+        when(consentDataService.store(scaResponse)).thenReturn(UPDATED_BYTES);
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
+
+        consentData.updateScaResponse(new GlobalScaResponseTO());
+        consentData.updateScaResponse(scaResponse);
+        consentData.flush();
+        consentData.flush();
+
+        verify(consentDataService, times(1)).store(scaResponse);
+        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(UPDATED_BYTES);
+        verify(aspspConsentDataProvider, never()).loadAspspConsentData();
+    }
+
+    @Test
+    void flush_bytesUpdated_shouldWriteBytes() {
+        CachingAspspConsentDataProvider consentData = CachingAspspConsentDataProvider.of(aspspConsentDataProvider, consentDataService);
+
+        consentData.updateAspspConsentData(UPDATED_BYTES);
+        consentData.flush();
+
+        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(UPDATED_BYTES);
+        verifyNoInteractions(consentDataService);
+    }
+}
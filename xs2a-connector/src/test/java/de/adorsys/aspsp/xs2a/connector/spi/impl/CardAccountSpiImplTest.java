@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
@@ -102,6 +103,8 @@ class CardAccountSpiImplTest {
     private IbanResolverMockService ibanResolverMockService;
     @Mock
     private OwnerNameService ownerNameService;
+    @Mock
+    private AccountListCacheService accountListCacheService;
 
     private JsonReader jsonReader = new JsonReader();
     private SpiAccountConsent spiAccountConsent;
@@ -218,7 +221,7 @@ class CardAccountSpiImplTest {
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_FIRST_ACCOUNT);
 
@@ -259,7 +262,7 @@ class CardAccountSpiImplTest {
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
 
         spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent-no-currency.json", SpiAccountConsent.class);
@@ -287,7 +290,7 @@ class CardAccountSpiImplTest {
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_FIRST_ACCOUNT);
@@ -321,7 +324,7 @@ class CardAccountSpiImplTest {
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountConsent accountConsentWithTwoAccounts = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-account-consent-two-accounts.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = accountConsentWithTwoAccounts.getAccess();
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
@@ -358,7 +361,7 @@ class CardAccountSpiImplTest {
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_SECOND_ACCOUNT);
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_SECOND_ACCOUNT)).thenReturn(MASKED_PAN_SECOND_ACCOUNT);
@@ -388,7 +391,7 @@ class CardAccountSpiImplTest {
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_SECOND_ACCOUNT);
 
@@ -546,7 +549,7 @@ class CardAccountSpiImplTest {
     }
 
     private void verifyGetListOfAccounts() {
-        verify(accountRestClient, times(1)).getListOfAccounts();
+        verify(accountListCacheService, times(1)).getListOfAccounts();
         verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentDataBytes());
         verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
         verify(authRequestInterceptor).setAccessToken(null);
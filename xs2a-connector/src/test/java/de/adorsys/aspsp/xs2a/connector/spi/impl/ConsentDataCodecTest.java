@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.sca.GlobalScaResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.um.AccessTokenTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsentDataCodecTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConsentDataCodec consentDataCodec;
+
+    @BeforeEach
+    void setUp() {
+        consentDataCodec = new ConsentDataCodec(objectMapper);
+        ReflectionTestUtils.setField(consentDataCodec, "binaryEncodingEnabled", true);
+    }
+
+    @Test
+    void encode_shouldWriteEnvelope() throws IOException {
+        byte[] bytes = consentDataCodec.encode(getScaResponse());
+
+        assertArrayEquals(ConsentDataCodec.MAGIC, Arrays.copyOf(bytes, ConsentDataCodec.MAGIC.length));
+        assertEquals(ConsentDataCodec.SMILE_VERSION, bytes[ConsentDataCodec.MAGIC.length]);
+        assertTrue(bytes.length < objectMapper.writeValueAsBytes(getScaResponse()).length);
+    }
+
+    @Test
+    void decode_encodedValue_shouldReturnSameTree() throws IOException {
+        GlobalScaResponseTO scaResponse = getScaResponse();
+
+        JsonNode jsonNode = consentDataCodec.decode(consentDataCodec.encode(scaResponse));
+
+        assertEquals(objectMapper.valueToTree(scaResponse), jsonNode);
+    }
+
+    @Test
+    void decode_legacyJson_shouldReturnTree() throws IOException {
+        GlobalScaResponseTO scaResponse = getScaResponse();
+
+        JsonNode jsonNode = consentDataCodec.decode(objectMapper.writeValueAsBytes(scaResponse));
+
+        assertEquals(objectMapper.valueToTree(scaResponse), jsonNode);
+    }
+
+    @Test
+    void decode_unknownVersion_shouldFail() throws IOException {
+        byte[] bytes = consentDataCodec.encode(getScaResponse());
+        bytes[ConsentDataCodec.MAGIC.length] = 99;
+
+        assertThrows(IOException.class, () -> consentDataCodec.decode(bytes));
+    }
+
+    @Test
+    void encode_binaryEncodingDisabled_shouldWriteJson() throws IOException {
+        ReflectionTestUtils.setField(consentDataCodec, "binaryEncodingEnabled", false);
+        GlobalScaResponseTO scaResponse = getScaResponse();
+
+        byte[] bytes = consentDataCodec.encode(scaResponse);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(scaResponse), bytes);
+    }
+
+    @Test
+    void decode_binaryEncodingDisabled_shouldReturnSameTree() throws IOException {
+        ReflectionTestUtils.setField(consentDataCodec, "binaryEncodingEnabled", false);
+        GlobalScaResponseTO scaResponse = getScaResponse();
+
+        JsonNode jsonNode = consentDataCodec.decode(consentDataCodec.encode(scaResponse));
+
+        assertEquals(objectMapper.valueToTree(scaResponse), jsonNode);
+    }
+
+    @Test
+    void decode_envelopeAfterSwitchingOff_shouldReturnSameTree() throws IOException {
+        GlobalScaResponseTO scaResponse = getScaResponse();
+        byte[] envelope = consentDataCodec.encode(scaResponse);
+        ReflectionTestUtils.setField(consentDataCodec, "binaryEncodingEnabled", false);
+
+        JsonNode jsonNode = consentDataCodec.decode(envelope);
+
+        assertEquals(objectMapper.valueToTree(scaResponse), jsonNode);
+    }
+
+    private GlobalScaResponseTO getScaResponse() {
+        GlobalScaResponseTO sca = new GlobalScaResponseTO();
+        BearerTokenTO token = new BearerTokenTO();
+        token.setExpires_in(100);
+        token.setAccessTokenObject(new AccessTokenTO());
+        token.setRefresh_token("refresh_token");
+        token.setAccess_token("access_token");
+        sca.setBearerToken(token);
+        return sca;
+    }
+}
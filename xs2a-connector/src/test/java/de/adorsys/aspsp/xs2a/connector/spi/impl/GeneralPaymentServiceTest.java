@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.cms.CmsPsuPisClient;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiPaymentMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.payment.GeneralPaymentService;
@@ -105,6 +106,8 @@ class GeneralPaymentServiceTest {
     private RequestProviderService requestProviderService;
     @Mock
     private OperationInitiationRestClient operationInitiationRestClient;
+    @Mock
+    private AccountListCacheService accountListCacheService;
 
     private GeneralPaymentService generalPaymentService;
     private String paymentBodyXml;
@@ -116,7 +119,7 @@ class GeneralPaymentServiceTest {
                                                           feignExceptionReader, paymentBodyXml, multilevelScaService,
                                                           redirectScaRestClient,
                                                           cmsPsuPisClient, requestProviderService,
-                                                          operationInitiationRestClient);
+                                                          operationInitiationRestClient, accountListCacheService);
     }
 
     @Test
@@ -431,6 +434,7 @@ class GeneralPaymentServiceTest {
 
         when(paymentRestClient.getPaymentStatusById(PAYMENT_ID)).thenReturn(ResponseEntity.ok(TransactionStatusTO.ACCP));
         when(operationInitiationRestClient.execution(OpTypeTO.PAYMENT,"payment id")).thenReturn(ResponseEntity.accepted().body(globalScaResponse));
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
 
         SpiResponse<SpiPaymentExecutionResponse> actual = generalPaymentService.verifyScaAuthorisationAndExecutePaymentWithPaymentResponse(spiScaConfirmation, spiAspspConsentDataProvider);
 
@@ -438,6 +442,7 @@ class GeneralPaymentServiceTest {
         assertEquals(SpiTransactionStatus.ACCP, actual.getPayload().getTransactionStatus());
 
         verify(cmsPsuPisClient, times(1)).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+        verify(accountListCacheService).evictByTokenSubject(ACCESS_TOKEN);
         verify(authRequestInterceptor, times(1)).setAccessToken(null);
     }
 
@@ -522,6 +527,7 @@ class GeneralPaymentServiceTest {
 
         assertTrue(actual.isSuccessful());
         assertEquals(SpiTransactionStatus.ACCP, actual.getPayload().getTransactionStatus());
+        verify(accountListCacheService).evictByTokenSubject(ACCESS_TOKEN);
     }
 
     @Test
@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl.authorisation;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListCacheService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.AisConsentMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaMethodConverter;
@@ -60,7 +61,6 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO.FINALISED;
@@ -120,7 +120,7 @@ class AisConsentSpiImplTest {
     @Mock
     private ScaMethodConverter scaMethodConverter;
     @Mock
-    private AccountRestClient accountRestClient;
+    private AccountListCacheService accountListCacheService;
     @Mock
     private LedgersSpiAccountMapper accountMapper;
     @Mock
@@ -183,7 +183,7 @@ class AisConsentSpiImplTest {
         authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
 
         when(accountMapper.toSpiAccountDetails(accountDetailsTOS.get(0))).thenReturn(spiAccountDetails.get(0));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.of(Optional.of(accountDetailsTOS)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(accountDetailsTOS);
 
         GlobalScaResponseTO globalScaResponseTO = new GlobalScaResponseTO();
         when(redirectScaRestClient.startSca(any(StartScaOprTO.class))).thenReturn(ResponseEntity.ok(globalScaResponseTO));
@@ -226,7 +226,7 @@ class AisConsentSpiImplTest {
         authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
 
         when(accountMapper.toSpiAccountDetails(accountDetailsTOS.get(0))).thenReturn(spiAccountDetails.get(0));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.of(Optional.of(accountDetailsTOS)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(accountDetailsTOS);
 
         GlobalScaResponseTO globalScaResponseTO = new GlobalScaResponseTO();
         when(redirectScaRestClient.startSca(any(StartScaOprTO.class))).thenReturn(ResponseEntity.ok(globalScaResponseTO));
@@ -269,7 +269,7 @@ class AisConsentSpiImplTest {
         authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
 
         when(accountMapper.toSpiAccountDetails(accountDetailsTOS.get(0))).thenReturn(spiAccountDetails.get(0));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.of(Optional.of(accountDetailsTOS)));
+        when(accountListCacheService.getListOfAccounts()).thenReturn(accountDetailsTOS);
 
         GlobalScaResponseTO globalScaResponseTO = new GlobalScaResponseTO();
         when(redirectScaRestClient.startSca(any(StartScaOprTO.class))).thenReturn(ResponseEntity.ok(globalScaResponseTO));
@@ -396,6 +396,9 @@ class AisConsentSpiImplTest {
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
 
         GlobalScaResponseTO initialConsentResponseTO = new GlobalScaResponseTO();
+        BearerTokenTO token = new BearerTokenTO();
+        token.setAccess_token(ACCESS_TOKEN);
+        initialConsentResponseTO.setBearerToken(token);
         when(consentDataService.response(CONSENT_DATA_BYTES, false)).thenReturn(initialConsentResponseTO);
 
         ArgumentCaptor<GlobalScaResponseTO> consentResponseCaptor = ArgumentCaptor.forClass(GlobalScaResponseTO.class);
@@ -405,6 +408,7 @@ class AisConsentSpiImplTest {
 
         // Then
         verify(consentDataService).store(consentResponseCaptor.capture());
+        verify(accountListCacheService).evictByAccessToken(ACCESS_TOKEN);
 
         assertFalse(actual.hasError());
     }
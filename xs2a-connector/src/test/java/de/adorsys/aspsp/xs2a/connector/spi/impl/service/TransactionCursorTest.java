@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.service;
+
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionCursorTest {
+    private static final String RESOURCE_ID = "resource ID";
+    private static final LocalDate DATE_FROM = LocalDate.of(2023, 1, 1);
+    private static final LocalDate DATE_TO = LocalDate.of(2023, 6, 30);
+    private static final byte[] SIGNING_KEY = "signing key".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void encode_decode_shouldKeepPosition() {
+        TransactionCursor cursor = new TransactionCursor(RESOURCE_ID, DATE_FROM, DATE_TO, 0, 10)
+                                           .next(Collections.singletonList(transaction("id|1", DATE_TO)));
+
+        Optional<TransactionCursor> decoded = TransactionCursor.decode(cursor.encode(SIGNING_KEY), SIGNING_KEY);
+
+        assertEquals(Optional.of(cursor), decoded);
+        assertEquals(1, decoded.get().getPage());
+        assertEquals("id|1", decoded.get().getLastTransactionId());
+    }
+
+    @Test
+    void decode_invalidToken_shouldReturnEmpty() {
+        assertEquals(Optional.empty(), TransactionCursor.decode("not a cursor", SIGNING_KEY));
+        assertEquals(Optional.empty(), TransactionCursor.decode("", SIGNING_KEY));
+    }
+
+    @Test
+    void decode_changedPayload_shouldReturnEmpty() {
+        String token = new TransactionCursor(RESOURCE_ID, DATE_FROM, DATE_TO, 0, 10).encode(SIGNING_KEY);
+        String forgedPayload = new TransactionCursor(RESOURCE_ID, DATE_FROM.minusYears(1), DATE_TO, 0, 10).encode(SIGNING_KEY)
+                                       .split("\\.")[0];
+        String forgedToken = forgedPayload + token.substring(token.indexOf('.'));
+
+        assertEquals(Optional.empty(), TransactionCursor.decode(forgedToken, SIGNING_KEY));
+    }
+
+    @Test
+    void decode_otherKey_shouldReturnEmpty() {
+        String token = new TransactionCursor(RESOURCE_ID, DATE_FROM, DATE_TO, 0, 10).encode(SIGNING_KEY);
+
+        assertEquals(Optional.empty(), TransactionCursor.decode(token, "other key".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void skipDelivered_shiftedPage_shouldDropDeliveredTransactions() {
+        TransactionTO delivered = transaction("2", DATE_TO);
+        TransactionCursor cursor = new TransactionCursor(RESOURCE_ID, DATE_FROM, DATE_TO, 0, 2)
+                                           .next(Arrays.asList(transaction("1", DATE_TO), delivered));
+        TransactionTO notDelivered = transaction("3", DATE_FROM);
+
+        List<TransactionTO> transactions = cursor.skipDelivered(Arrays.asList(delivered, notDelivered));
+
+        assertEquals(Collections.singletonList(notDelivered), transactions);
+    }
+
+    @Test
+    void skipDelivered_notShiftedPage_shouldKeepAllTransactions() {
+        TransactionCursor cursor = new TransactionCursor(RESOURCE_ID, DATE_FROM, DATE_TO, 0, 1)
+                                           .next(Collections.singletonList(transaction("1", DATE_TO)));
+        List<TransactionTO> page = Arrays.asList(transaction("2", DATE_TO), transaction("3", DATE_FROM));
+
+        assertEquals(page, cursor.skipDelivered(page));
+    }
+
+    private static TransactionTO transaction(String transactionId, LocalDate bookingDate) {
+        TransactionTO transaction = new TransactionTO();
+        transaction.setTransactionId(transactionId);
+        transaction.setBookingDate(bookingDate);
+        return transaction;
+    }
+}
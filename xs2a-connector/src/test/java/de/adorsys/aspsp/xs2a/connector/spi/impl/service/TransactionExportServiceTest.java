@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.DownloadFileStatus;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileContentWriter;
+import de.adorsys.aspsp.xs2a.connector.spi.file.util.FileManagementService;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestAsyncClient;
+import de.adorsys.ledgers.util.domain.CustomPageImpl;
+import de.adorsys.psd2.mapper.Xs2aObjectMapper;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String CONSENT_ID = "consent ID";
+    private static final String DOWNLOAD_LINK = "/tmp/XS2A/transactions.json";
+    private static final String RESOURCE_ID = "resource ID";
+    private static final LocalDate DATE_FROM = LocalDate.of(2023, 1, 15);
+    private static final LocalDate DATE_TO = LocalDate.of(2023, 3, 10);
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    private AccountRestAsyncClient accountRestAsyncClient;
+    @Mock
+    private LedgersSpiAccountMapper accountMapper;
+    @Mock
+    private Xs2aObjectMapper xs2aObjectMapper;
+    @Mock
+    private FileManagementService fileManagementService;
+    @Mock
+    private JsonGenerator jsonGenerator;
+    @Mock
+    private Function<FileContentWriter, String> downloadLinkBuilder;
+    @InjectMocks
+    private TransactionExportService transactionExportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionExportService, "shardedExportEnabled", true);
+        ReflectionTestUtils.setField(transactionExportService, "parallelism", 2);
+        ReflectionTestUtils.setField(transactionExportService, "pageSize", PAGE_SIZE);
+        ReflectionTestUtils.setField(transactionExportService, "minWindowDays", 31);
+    }
+
+    @Test
+    void isShardedExport() {
+        assertTrue(transactionExportService.isShardedExport(DATE_FROM, DATE_TO));
+        assertFalse(transactionExportService.isShardedExport(DATE_FROM, DATE_FROM.plusDays(10)));
+
+        ReflectionTestUtils.setField(transactionExportService, "minWindowDays", 92);
+        assertFalse(transactionExportService.isShardedExport(DATE_FROM, DATE_TO));
+
+        ReflectionTestUtils.setField(transactionExportService, "minWindowDays", 31);
+        ReflectionTestUtils.setField(transactionExportService, "shardedExportEnabled", false);
+        assertFalse(transactionExportService.isShardedExport(DATE_FROM, DATE_TO));
+    }
+
+    @Test
+    void getExportDownloadLink_exportRunning_shouldNotStartItAgain() {
+        when(downloadLinkBuilder.apply(any())).thenReturn(DOWNLOAD_LINK);
+        when(fileManagementService.getFileStatus(DOWNLOAD_LINK)).thenReturn(DownloadFileStatus.PENDING);
+
+        assertEquals(DOWNLOAD_LINK, transactionExportService.getExportDownloadLink(CONSENT_ID, ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, downloadLinkBuilder));
+        assertEquals(DOWNLOAD_LINK, transactionExportService.getExportDownloadLink(CONSENT_ID, ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, downloadLinkBuilder));
+
+        verify(downloadLinkBuilder, times(1)).apply(any());
+        verifyNoInteractions(accountRestAsyncClient);
+    }
+
+    @Test
+    void getExportDownloadLink_exportDownloaded_shouldStartItAgain() {
+        String nextDownloadLink = "/tmp/XS2A/next/transactions.json";
+        when(downloadLinkBuilder.apply(any())).thenReturn(DOWNLOAD_LINK, nextDownloadLink);
+        when(fileManagementService.getFileStatus(DOWNLOAD_LINK)).thenReturn(DownloadFileStatus.EXPIRED);
+
+        assertEquals(DOWNLOAD_LINK, transactionExportService.getExportDownloadLink(CONSENT_ID, ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, downloadLinkBuilder));
+        assertEquals(nextDownloadLink, transactionExportService.getExportDownloadLink(CONSENT_ID, ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, downloadLinkBuilder));
+    }
+
+    @Test
+    void getExportDownloadLink_otherWindow_shouldStartExport() {
+        when(downloadLinkBuilder.apply(any())).thenReturn(DOWNLOAD_LINK);
+
+        transactionExportService.getExportDownloadLink(CONSENT_ID, ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO, downloadLinkBuilder);
+        transactionExportService.getExportDownloadLink(CONSENT_ID, ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO.plusDays(1), downloadLinkBuilder);
+
+        verify(downloadLinkBuilder, times(2)).apply(any());
+        verifyNoInteractions(fileManagementService);
+    }
+
+    @Test
+    void splitIntoMonths() {
+        List<LocalDate[]> shards = transactionExportService.splitIntoMonths(DATE_FROM, DATE_TO);
+
+        assertEquals(3, shards.size());
+        assertArrayEquals(new LocalDate[]{DATE_FROM, LocalDate.of(2023, 1, 31)}, shards.get(0));
+        assertArrayEquals(new LocalDate[]{LocalDate.of(2023, 2, 1), LocalDate.of(2023, 2, 28)}, shards.get(1));
+        assertArrayEquals(new LocalDate[]{LocalDate.of(2023, 3, 1), DATE_TO}, shards.get(2));
+    }
+
+    @Test
+    void exportWriter_shouldWriteShardsInBookingOrder() throws IOException {
+        TransactionTO januaryLate = transaction("3", LocalDate.of(2023, 1, 20));
+        TransactionTO januaryEarlySecond = transaction("2", LocalDate.of(2023, 1, 16));
+        TransactionTO januaryEarlyFirst = transaction("1", LocalDate.of(2023, 1, 16));
+        TransactionTO januaryLast = transaction("4", LocalDate.of(2023, 1, 31));
+        TransactionTO march = transaction("5", LocalDate.of(2023, 3, 2));
+        whenPageRequested(DATE_FROM, LocalDate.of(2023, 1, 31), 0, page(false, januaryLate, januaryEarlySecond));
+        whenPageRequested(DATE_FROM, LocalDate.of(2023, 1, 31), 1, page(false, januaryLast, januaryEarlyFirst));
+        whenPageRequested(DATE_FROM, LocalDate.of(2023, 1, 31), 2, page(true));
+        whenPageRequested(LocalDate.of(2023, 2, 1), LocalDate.of(2023, 2, 28), 0, page(true));
+        whenPageRequested(LocalDate.of(2023, 3, 1), DATE_TO, 0, page(true, march));
+        when(xs2aObjectMapper.createGenerator(any(OutputStream.class))).thenReturn(jsonGenerator);
+        SpiTransaction spiTransaction = mock(SpiTransaction.class);
+        when(accountMapper.toSpiTransactions(any())).thenReturn(Collections.singletonList(spiTransaction));
+
+        transactionExportService.exportWriter(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO).write(new ByteArrayOutputStream());
+
+        InOrder inOrder = inOrder(accountMapper, jsonGenerator);
+        inOrder.verify(jsonGenerator).writeStartArray();
+        inOrder.verify(accountMapper).toSpiTransactions(Arrays.asList(januaryEarlyFirst, januaryEarlySecond, januaryLate, januaryLast));
+        inOrder.verify(accountMapper).toSpiTransactions(Collections.emptyList());
+        inOrder.verify(accountMapper).toSpiTransactions(Collections.singletonList(march));
+        inOrder.verify(jsonGenerator).writeEndArray();
+        verify(jsonGenerator, times(3)).writeObject(spiTransaction);
+    }
+
+    @Test
+    void exportWriter_sameBookingDate_shouldSortByTransactionId() throws IOException {
+        TransactionTO second = transaction("b", LocalDate.of(2023, 1, 16));
+        TransactionTO first = transaction("a", LocalDate.of(2023, 1, 16));
+        ReflectionTestUtils.setField(transactionExportService, "parallelism", 1);
+        whenPageRequested(DATE_FROM, LocalDate.of(2023, 1, 31), 0, page(true, second, first));
+        whenPageRequested(LocalDate.of(2023, 2, 1), LocalDate.of(2023, 2, 28), 0, page(true));
+        whenPageRequested(LocalDate.of(2023, 3, 1), DATE_TO, 0, page(true));
+        when(xs2aObjectMapper.createGenerator(any(OutputStream.class))).thenReturn(jsonGenerator);
+
+        transactionExportService.exportWriter(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO).write(new ByteArrayOutputStream());
+
+        verify(accountMapper).toSpiTransactions(Arrays.asList(first, second));
+    }
+
+    @Test
+    void exportWriter_failedPage_shouldThrowIOExceptionAndCancelPendingPages() throws IOException {
+        CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> failedPage = new CompletableFuture<>();
+        failedPage.completeExceptionally(new IllegalStateException("Ledgers is not available"));
+        CompletableFuture<ResponseEntity<CustomPageImpl<TransactionTO>>> pendingPage = new CompletableFuture<>();
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, LocalDate.of(2023, 1, 31), 0, PAGE_SIZE))
+                .thenReturn(failedPage);
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, RESOURCE_ID, LocalDate.of(2023, 2, 1), LocalDate.of(2023, 2, 28), 0, PAGE_SIZE))
+                .thenReturn(pendingPage);
+        when(xs2aObjectMapper.createGenerator(any(OutputStream.class))).thenReturn(jsonGenerator);
+
+        assertThrows(IOException.class, () -> transactionExportService.exportWriter(ACCESS_TOKEN, RESOURCE_ID, DATE_FROM, DATE_TO)
+                                                      .write(new ByteArrayOutputStream()));
+        assertTrue(pendingPage.isCancelled());
+    }
+
+    private void whenPageRequested(LocalDate dateFrom, LocalDate dateTo, int page, CustomPageImpl<TransactionTO> transactions) {
+        when(accountRestAsyncClient.getTransactionByDatesPaged(ACCESS_TOKEN, RESOURCE_ID, dateFrom, dateTo, page, PAGE_SIZE))
+                .thenReturn(CompletableFuture.completedFuture(ResponseEntity.ok(transactions)));
+    }
+
+    private static TransactionTO transaction(String transactionId, LocalDate bookingDate) {
+        TransactionTO transaction = new TransactionTO();
+        transaction.setTransactionId(transactionId);
+        transaction.setBookingDate(bookingDate);
+        return transaction;
+    }
+
+    private static CustomPageImpl<TransactionTO> page(boolean lastPage, TransactionTO... transactions) {
+        CustomPageImpl<TransactionTO> page = new CustomPageImpl<>();
+        page.setContent(Arrays.asList(transactions));
+        page.setLastPage(lastPage);
+        return page;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018-2023 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionLinksServiceTest {
+    private static final String RESOURCE_ID = "resource ID";
+    private static final String URI = "/v1/accounts/resource/transactions";
+    private static final LocalDate DATE_FROM = LocalDate.of(2023, 1, 1);
+    private static final LocalDate DATE_TO = LocalDate.of(2023, 6, 30);
+    private static final String SIGNING_KEY = "signing key";
+
+    private MockHttpServletRequest request;
+    private TransactionLinksService transactionLinksService;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest("GET", URI);
+        transactionLinksService = new TransactionLinksService(request);
+        ReflectionTestUtils.setField(transactionLinksService, "cursorEnabled", true);
+        ReflectionTestUtils.setField(transactionLinksService, "cursorSigningKey", SIGNING_KEY);
+        transactionLinksService.initSigningKey();
+    }
+
+    @Test
+    void getCursor_signedCursor_shouldReturnCursor() {
+        TransactionCursor cursor = new TransactionCursor(RESOURCE_ID, DATE_FROM, DATE_TO, 0, 1);
+        request.setParameter("cursor", getNextCursorToken(cursor));
+
+        Optional<TransactionCursor> actual = transactionLinksService.getCursor(RESOURCE_ID);
+
+        assertTrue(actual.isPresent());
+        assertEquals(1, actual.get().getPage());
+        assertEquals(DATE_FROM, actual.get().getDateFrom());
+        assertTrue(transactionLinksService.isCursorRequested());
+    }
+
+    @Test
+    void getCursor_otherAccount_shouldReturnEmpty() {
+        request.setParameter("cursor", getNextCursorToken(new TransactionCursor("other resource ID", DATE_FROM, DATE_TO, 0, 1)));
+
+        assertEquals(Optional.empty(), transactionLinksService.getCursor(RESOURCE_ID));
+        assertTrue(transactionLinksService.isCursorRequested());
+    }
+
+    @Test
+    void getCursor_unsignedCursor_shouldReturnEmpty() {
+        request.setParameter("cursor", new TransactionCursor(RESOURCE_ID, DATE_FROM.minusYears(5), DATE_TO, 0, 1)
+                                               .encode("forged key".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(Optional.empty(), transactionLinksService.getCursor(RESOURCE_ID));
+        assertTrue(transactionLinksService.isCursorRequested());
+    }
+
+    @Test
+    void isCursorRequested_noCursor_shouldReturnFalse() {
+        assertFalse(transactionLinksService.isCursorRequested());
+    }
+
+    @Test
+    void isCursorRequested_cursorDisabled_shouldReturnFalse() {
+        ReflectionTestUtils.setField(transactionLinksService, "cursorEnabled", false);
+        request.setParameter("cursor", "cursor");
+
+        assertFalse(transactionLinksService.isCursorRequested());
+        assertEquals(Optional.empty(), transactionLinksService.getCursor(RESOURCE_ID));
+    }
+
+    private String getNextCursorToken(TransactionCursor cursor) {
+        return cursor.next(Collections.emptyList()).encode(SIGNING_KEY.getBytes(StandardCharsets.UTF_8));
+    }
+}